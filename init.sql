@@ -1,7 +1,5 @@
-CREATE DATABASE IF NOT EXISTS cosmoport
-    COLLATE utf8_general_ci;
-CREATE DATABASE IF NOT EXISTS test
-    COLLATE utf8_general_ci;
+CREATE SCHEMA IF NOT EXISTS cosmoport;
+CREATE SCHEMA IF NOT EXISTS test;
 
 USE cosmoport;
 
@@ -14,6 +12,7 @@ CREATE TABLE ship
     planet   VARCHAR(50) NULL,
     shipType VARCHAR(9)  NULL,
     prodDate date        NULL,
+    prodYear SMALLINT    NULL,
     isUsed   BIT(1)      NULL,
     speed    DOUBLE      NULL,
     crewSize INT(4)      NULL,
@@ -64,3 +63,22 @@ values ('Orion III', 'Mars', 'MERCHANT', '2995-01-01', true, 0.82, 617, 1.31)
      , ('Nostromo', 'Saturn', 'MERCHANT', '2991-01-01', true, 0.31, 1967, 0.43)
      , ('Tardis', 'Jupiter', 'MERCHANT', '3016-01-01', false, 0.86, 4871, 17.20)
      , ('Star Destroyer', 'Mercury', 'MILITARY', '3017-01-01', false, 0.92, 4880, 24.53);
+
+UPDATE ship SET prodYear = YEAR(prodDate);
+
+CREATE INDEX ship_prodYear ON ship (prodYear);
+
+DROP TABLE IF EXISTS ship_sequence;
+
+CREATE TABLE ship_sequence
+(
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val      BIGINT(20)   NULL,
+    PRIMARY KEY (sequence_name)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARACTER SET = utf8;
+
+INSERT INTO ship_sequence (sequence_name, next_val)
+SELECT 'ship', COALESCE(MAX(id), 0)
+FROM ship;
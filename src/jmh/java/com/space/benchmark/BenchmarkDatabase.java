@@ -0,0 +1,61 @@
+package com.space.benchmark;
+
+import com.space.config.DataSourceConfig;
+import com.space.service.ShipDataGenerator;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.PropertiesPropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * Embedded database of the {@code embedded} profile seeded with valid generated ships, plus a
+ * Spring context of the service layer on top of it, optionally with settings such as {@code cosmoport.jpa.tuning}.
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+
+    private final DataSource dataSource;
+    private final AnnotationConfigApplicationContext context;
+
+    public BenchmarkDatabase(int rows) throws SQLException {
+        this(rows, new Properties());
+    }
+
+    public BenchmarkDatabase(int rows, Properties settings) throws SQLException {
+        // init.sql switches to the cosmoport schema, so every row count gets a database of its own
+        dataSource = DataSourceConfig.embedded("benchmark" + rows, "cosmoport");
+        new ResourceDatabasePopulator(new ClassPathResource("init.sql")).execute(dataSource);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM ship");
+        }
+        new ShipDataGenerator(42).insert(dataSource, rows);
+        new ResourceDatabasePopulator(new ClassPathResource("db/ship-sequence.sql")).execute(dataSource);
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new PropertiesPropertySource("benchmark", settings));
+        context.getBeanFactory().registerSingleton("dataSource", dataSource);
+        context.register(BenchmarkConfig.class);
+        context.refresh();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        context.close();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.space.benchmark;
+
+import com.space.config.JdbcTuning;
+import com.space.model.Ship;
+import com.space.service.ShipDataGenerator;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk inserts and full scans with and without the performance JDBC profile. The embedded H2 database has
+ * no network, so the gap measured here is Hibernate's side of batching; against MySQL each saved round trip
+ * adds its latency on top. For the same reason the fetch size leaves scanAll level here, as an embedded
+ * connection holds the whole result in memory anyway.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JdbcTuningBenchmark {
+
+    @Param({JdbcTuning.NONE, JdbcTuning.PERFORMANCE})
+    private String tuning;
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"500"})
+    private int batch;
+
+    private BenchmarkDatabase database;
+    private ShipService shipService;
+    private TransactionTemplate transaction;
+    private Specification<Ship> all;
+
+    private final ShipDataGenerator generator = new ShipDataGenerator(7);
+
+    @Setup
+    public void setUp() throws Exception {
+        Properties settings = new Properties();
+        settings.setProperty("cosmoport.jpa.tuning", tuning);
+        database = new BenchmarkDatabase(rows, settings);
+        shipService = database.getBean(ShipService.class);
+        transaction = new TransactionTemplate(database.getBean(PlatformTransactionManager.class));
+        all = new ShipFilter().toSpecification(shipService);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    // rolled back, so every invocation inserts into a table of the same size
+    @Benchmark
+    public List<Ship> bulkInsert() {
+        List<Ship> ships = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            ships.add(generator.next());
+        }
+
+        return transaction.execute(status -> {
+            List<Ship> created = shipService.createShips(ships);
+            status.setRollbackOnly();
+            return created;
+        });
+    }
+
+    @Benchmark
+    public int scanAll() {
+        return shipService.getAllShips(all).size();
+    }
+}
@@ -0,0 +1,120 @@
+package com.space.benchmark;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipQuery;
+import com.space.repository.ShipRepository;
+import com.space.service.ShipFilter;
+import com.space.service.ShipQueryRegistry;
+import com.space.service.ShipService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ShipQueryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private BenchmarkDatabase database;
+    private ShipService shipService;
+    private ShipRepository shipRepository;
+    private ShipQueryRegistry shipQueryRegistry;
+    private EntityManager entityManager;
+
+    private final ShipFilter noFilter = new ShipFilter();
+    private final ShipFilter filter = new ShipFilter();
+    private final Pageable firstPage = PageRequest.of(0, 20, ShipOrder.ID.getSort());
+    private final Pageable ratingPage = PageRequest.of(3, 20, ShipOrder.RATING.getSort());
+
+    @Setup
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase(rows);
+        shipService = database.getBean(ShipService.class);
+        shipRepository = database.getBean(ShipRepository.class);
+        shipQueryRegistry = database.getBean(ShipQueryRegistry.class);
+        entityManager = database.getBean(EntityManagerFactory.class).createEntityManager();
+
+        filter.setShipType(ShipType.MILITARY);
+        filter.setMinSpeed(0.5);
+        filter.setIsUsed(false);
+        filter.setName("on");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        entityManager.close();
+        database.close();
+    }
+
+    @Benchmark
+    public List<Ship> listFirstPage() {
+        return shipService.getShips(noFilter, firstPage).getContent();
+    }
+
+    @Benchmark
+    public List<Ship> listFiltered() {
+        return shipService.getShips(filter, ratingPage).getContent();
+    }
+
+    @Benchmark
+    public long countAll() {
+        return shipService.countShips(noFilter);
+    }
+
+    @Benchmark
+    public long countFiltered() {
+        return shipService.countShips(filter);
+    }
+
+    @Benchmark
+    public CriteriaQuery<Ship> buildCriteria() {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = builder.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+        return query.where(filter.toSpecification(shipService).toPredicate(root, query, builder));
+    }
+
+    @Benchmark
+    public ShipQuery compileQuery() {
+        return shipQueryRegistry.compile(filter, ratingPage.getSort());
+    }
+
+    // listFiltered without the service around it, once through a Criteria query and once precompiled;
+    // executing the query dominates both, so the saving per call is what buildCriteria and compileQuery differ by
+    @Benchmark
+    public List<Ship> listFilteredCriteria() {
+        return shipRepository.findAll(filter.toSpecification(shipService), ratingPage).getContent();
+    }
+
+    @Benchmark
+    public List<Ship> listFilteredPrecompiled() {
+        return shipRepository.findAll(shipQueryRegistry.compile(filter, ratingPage.getSort()), ratingPage).getContent();
+    }
+}
@@ -0,0 +1,82 @@
+package com.space.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.JsonConfig;
+import com.space.model.EpochDates;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ShipSerializationBenchmark {
+
+    @Param({"20", "1000"})
+    private int size;
+
+    private ObjectMapper reflective;
+    private ObjectMapper mapper;
+    private List<Ship> ships;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256 * 1024);
+
+    @Setup
+    public void setUp() {
+        // the field-visibility mapper WebConfig used before ShipSerializer, kept as the baseline
+        reflective = new ObjectMapper();
+        reflective.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        reflective.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        mapper = JsonConfig.createObjectMapper();
+
+        ships = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Ship ship = new Ship();
+            ship.setId((long) i + 1);
+            ship.setName("Ship " + i);
+            ship.setPlanet("Mars");
+            ship.setShipType(ShipType.values()[i % ShipType.values().length]);
+            ship.setProdDate(EpochDates.toLocalDate(32998274577071L));
+            ship.setUsed(i % 2 == 0);
+            ship.setSpeed(0.5);
+            ship.setCrewSize(100 + i);
+            ship.setRating(2.5);
+            ships.add(ship);
+        }
+    }
+
+    // both write to a stream like the message converter does with the response body
+
+    @Benchmark
+    public int writeShipsReflective() throws Exception {
+        out.reset();
+        reflective.writeValue(out, ships);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeShips() throws Exception {
+        out.reset();
+        mapper.writeValue(out, ships);
+        return out.size();
+    }
+}
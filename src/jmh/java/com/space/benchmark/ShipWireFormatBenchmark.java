@@ -0,0 +1,86 @@
+package com.space.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.space.config.JsonConfig;
+import com.space.model.Ship;
+import com.space.service.ShipDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON against the Smile and CBOR representations served on {@code Accept}. The encoded size of
+ * each page is printed once per trial, next to the serialize and deserialize throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ShipWireFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"20", "1000"})
+    private int size;
+
+    private ObjectMapper mapper;
+    private List<Ship> ships;
+    private byte[] encoded;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256 * 1024);
+
+    @Setup
+    public void setUp() throws Exception {
+        switch (format) {
+            case "smile":
+                mapper = JsonConfig.createBinaryMapper(new SmileFactory());
+                break;
+            case "cbor":
+                mapper = JsonConfig.createBinaryMapper(new CBORFactory());
+                break;
+            default:
+                mapper = JsonConfig.createObjectMapper();
+        }
+
+        ShipDataGenerator generator = new ShipDataGenerator(42);
+        ships = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Ship ship = generator.next();
+            ship.setId((long) i + 1);
+            ships.add(ship);
+        }
+
+        encoded = mapper.writeValueAsBytes(ships);
+        System.out.printf("%n%s, %d ships: %d bytes (%.1f per ship)%n", format, size, encoded.length,
+                (double) encoded.length / size);
+    }
+
+    @Benchmark
+    public int serialize() throws Exception {
+        out.reset();
+        mapper.writeValue(out, ships);
+        return out.size();
+    }
+
+    @Benchmark
+    public Ship[] deserialize() throws Exception {
+        return mapper.readValue(encoded, Ship[].class);
+    }
+}
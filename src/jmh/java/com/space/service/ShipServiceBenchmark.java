@@ -0,0 +1,81 @@
+package com.space.service;
+
+import com.space.model.EpochDates;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ShipServiceBenchmark {
+
+    private final ShipServiceImpl shipService = new ShipServiceImpl();
+    private final Ship ship = new Ship();
+    private final ShipFilter emptyFilter = new ShipFilter();
+    private final ShipFilter fullFilter = new ShipFilter();
+
+    @Setup
+    public void setUp() {
+        ship.setProdDate(EpochDates.toLocalDate(32998274577071L));
+        ship.setUsed(false);
+        ship.setSpeed(0.8);
+
+        fullFilter.setName("on");
+        fullFilter.setPlanet("ar");
+        fullFilter.setShipType(ShipType.MILITARY);
+        fullFilter.setAfter(26192246400000L);
+        fullFilter.setBefore(33103209600000L);
+        fullFilter.setIsUsed(true);
+        fullFilter.setMinSpeed(0.1);
+        fullFilter.setMaxSpeed(0.9);
+        fullFilter.setMinCrewSize(10);
+        fullFilter.setMaxCrewSize(5000);
+        fullFilter.setMinRating(0.5);
+        fullFilter.setMaxRating(20d);
+    }
+
+    @Benchmark
+    public Double calculateRating() {
+        return ShipServiceImpl.calculateRating(ship);
+    }
+
+    @Benchmark
+    public Long idValidationValid() {
+        return shipService.idValidation("123456");
+    }
+
+    @Benchmark
+    public Object idValidationInvalid() {
+        try {
+            return shipService.idValidation("12.5a");
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Specification<Ship> composeEmptyFilter() {
+        return emptyFilter.toSpecification(shipService);
+    }
+
+    @Benchmark
+    public Specification<Ship> composeFullFilter() {
+        return fullFilter.toSpecification(shipService);
+    }
+}
@@ -0,0 +1,102 @@
+package com.space.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Settings of a load test run: {@code loadtest.properties} from the classpath overridden by
+ * {@code key=value} command line arguments, plus the weighted query profile the list and count
+ * calls are sampled from.
+ */
+public class LoadProfile {
+
+    private final Properties properties = new Properties();
+    private final WeightedSampler<Operation> operations = new WeightedSampler<>();
+    private final WeightedSampler<String> queries = new WeightedSampler<>();
+
+    public LoadProfile(String... args) throws IOException {
+        try (InputStream in = LoadProfile.class.getResourceAsStream("/loadtest.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        }
+
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            }
+            properties.setProperty(arg.substring(0, split), arg.substring(split + 1));
+        }
+
+        for (Operation operation : Operation.values()) {
+            operations.add(operation, getLong("mix." + operation.key(), 0));
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("The operation mix is empty");
+        }
+
+        loadQueries(properties.getProperty("queries", "classpath:recorded-queries.txt"));
+    }
+
+    // "<weight> <query string>" per line, e.g. "120 name=or&order=SPEED&pageSize=10"
+    private void loadQueries(String location) throws IOException {
+        try (Reader reader = open(location); BufferedReader lines = new BufferedReader(reader)) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] parts = line.split("\\s+", 2);
+                queries.add(parts.length > 1 ? parts[1] : "", Long.parseLong(parts[0]));
+            }
+        }
+
+        if (queries.isEmpty()) {
+            throw new IllegalArgumentException("No recorded queries in " + location);
+        }
+    }
+
+    private static Reader open(String location) throws IOException {
+        if (location.startsWith("classpath:")) {
+            InputStream in = LoadProfile.class.getResourceAsStream("/" + location.substring("classpath:".length()));
+            if (in == null) {
+                throw new IOException(location + " not found");
+            }
+            return new InputStreamReader(in, StandardCharsets.UTF_8);
+        }
+
+        return Files.newBufferedReader(Paths.get(location), StandardCharsets.UTF_8);
+    }
+
+    public WeightedSampler<Operation> getOperations() {
+        return operations;
+    }
+
+    public WeightedSampler<String> getQueries() {
+        return queries;
+    }
+
+    public String get(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    public Double getDouble(String key) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? null : Double.valueOf(value.trim());
+    }
+}
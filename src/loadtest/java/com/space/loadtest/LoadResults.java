@@ -0,0 +1,114 @@
+package com.space.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and error counts per operation, and the SLO check of a finished run.
+ */
+public class LoadResults {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Histogram all = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final LongAdder allErrors = new LongAdder();
+    private long elapsedNanos;
+
+    public LoadResults() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public void record(Operation operation, long nanos, boolean error) {
+        long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 1), MAX_LATENCY_MICROS);
+        latencies.get(operation).recordValue(micros);
+        all.recordValue(micros);
+
+        if (error) {
+            errors.get(operation).increment();
+            allErrors.increment();
+        }
+    }
+
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%-8s %10s %10s %10s %10s %10s %10s%n", "op", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "errors %");
+        for (Operation operation : Operation.values()) {
+            if (latencies.get(operation).getTotalCount() > 0) {
+                print(out, operation.key(), latencies.get(operation), errors.get(operation).sum());
+            }
+        }
+        print(out, "total", all, allErrors.sum());
+    }
+
+    private void print(PrintStream out, String name, Histogram histogram, long errorCount) {
+        long count = histogram.getTotalCount();
+        out.printf("%-8s %10d %10.1f %10.2f %10.2f %10.2f %10.3f%n", name, count, throughput(count),
+                millis(histogram, 50), millis(histogram, 99), millis(histogram, 99.9), 100d * errorCount / count);
+    }
+
+    /**
+     * Checks the {@code slo.*} settings, e.g. {@code slo.p99=50}, {@code slo.list.p99.9=200},
+     * {@code slo.error-rate=0.1} (percent) and {@code slo.throughput=500} (requests per second).
+     * Per-operation limits override the global ones. Returns the breaches, empty when all are met.
+     */
+    public List<String> checkSlos(LoadProfile profile) {
+        List<String> breaches = new ArrayList<>();
+
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+
+            for (String percentile : new String[]{"50", "99", "99.9"}) {
+                Double limit = limit(profile, operation, "p" + percentile);
+                double actual = millis(histogram, Double.parseDouble(percentile));
+                if (limit != null && actual > limit) {
+                    breaches.add(String.format("%s p%s %.2f ms > %.2f ms", operation.key(), percentile, actual, limit));
+                }
+            }
+
+            Double errorLimit = limit(profile, operation, "error-rate");
+            double errorRate = 100d * errors.get(operation).sum() / histogram.getTotalCount();
+            if (errorLimit != null && errorRate > errorLimit) {
+                breaches.add(String.format("%s error rate %.3f%% > %.3f%%", operation.key(), errorRate, errorLimit));
+            }
+        }
+
+        Double minThroughput = profile.getDouble("slo.throughput");
+        if (minThroughput != null && throughput(all.getTotalCount()) < minThroughput) {
+            breaches.add(String.format("throughput %.1f req/s < %.1f req/s", throughput(all.getTotalCount()), minThroughput));
+        }
+
+        return breaches;
+    }
+
+    private static Double limit(LoadProfile profile, Operation operation, String name) {
+        Double limit = profile.getDouble("slo." + operation.key() + "." + name);
+        return limit != null ? limit : profile.getDouble("slo." + name);
+    }
+
+    private double throughput(long count) {
+        return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000d;
+    }
+}
@@ -0,0 +1,203 @@
+package com.space.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.AppConfig;
+import com.space.config.DataSourceConfig;
+import com.space.config.WebConfig;
+import com.space.model.EpochDates;
+import com.space.model.Ship;
+import com.space.service.ShipDataGenerator;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Closed-loop load generator. Starts the application in-process on the embedded database, drives
+ * the ship endpoints through {@link MockMvc} with the configured operation mix and weighted query
+ * profile, prints throughput and latency percentiles and exits with status 1 when an SLO is breached.
+ *
+ * <p>Only the servlet container is left out, so the numbers cover dispatching, the service, the
+ * database and serialization.
+ */
+public class LoadTest {
+
+    private final LoadProfile profile;
+    private final MockMvc mockMvc;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final long seededShips;
+
+    // ships created by the run; only these get deleted, so detail and update always find their targets
+    private final ConcurrentLinkedQueue<Long> created = new ConcurrentLinkedQueue<>();
+
+    private volatile LoadResults results;
+    private volatile boolean running = true;
+
+    public LoadTest(LoadProfile profile, MockMvc mockMvc, long seededShips) {
+        this.profile = profile;
+        this.mockMvc = mockMvc;
+        this.seededShips = seededShips;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadProfile profile = new LoadProfile(args);
+        int seedRows = (int) profile.getLong("seed-rows", 100_000);
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("cosmoport.embedded.seed-rows", seedRows);
+        settings.put("cosmoport.slow-requests.enabled", profile.get("slow-requests", "false"));
+
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().setActiveProfiles(DataSourceConfig.EMBEDDED);
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("loadtest", settings));
+        context.register(AppConfig.class, WebConfig.class);
+        context.refresh();
+
+        try {
+            // init.sql brings 40 ships of its own in front of the generated ones
+            LoadTest loadTest = new LoadTest(profile, MockMvcBuilders.webAppContextSetup(context).build(), 40L + seedRows);
+            List<String> breaches = loadTest.run();
+
+            if (!breaches.isEmpty()) {
+                System.out.println();
+                System.out.println("SLO breached:");
+                breaches.forEach(breach -> System.out.println("  " + breach));
+                System.exit(1);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    public List<String> run() throws InterruptedException {
+        int threads = (int) profile.getLong("threads", 16);
+        long warmup = profile.getLong("warmup", 10);
+        long duration = profile.getLong("duration", 60);
+
+        System.out.printf("Load test: %d threads, %d s warmup, %d s measured, %d recorded queries%n",
+                threads, warmup, duration, profile.getQueries().size());
+
+        CountDownLatch done = new CountDownLatch(threads);
+        results = new LoadResults();
+        for (int i = 0; i < threads; i++) {
+            Random random = new Random(profile.getLong("seed", 42) + i);
+            Thread worker = new Thread(() -> {
+                try {
+                    work(random);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        TimeUnit.SECONDS.sleep(warmup);
+        results = new LoadResults();
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(duration);
+        LoadResults measured = results;
+        measured.setElapsedNanos(System.nanoTime() - start);
+
+        running = false;
+        done.await();
+
+        System.out.println();
+        measured.print(System.out);
+        return measured.checkSlos(profile);
+    }
+
+    private void work(Random random) {
+        ShipDataGenerator generator = new ShipDataGenerator(random.nextLong());
+
+        while (running) {
+            Operation operation = profile.getOperations().sample(random);
+            RequestBuilder request = request(operation, random, generator);
+            if (request == null) {
+                continue;
+            }
+
+            LoadResults target = results;
+            long start = System.nanoTime();
+            boolean error;
+            try {
+                MvcResult result = mockMvc.perform(request).andReturn();
+                error = result.getResponse().getStatus() >= 400;
+                if (!error && operation == Operation.CREATE) {
+                    created.add(mapper.readTree(result.getResponse().getContentAsByteArray()).get("id").asLong());
+                }
+            } catch (Exception e) {
+                error = true;
+            }
+            target.record(operation, System.nanoTime() - start, error);
+        }
+    }
+
+    private RequestBuilder request(Operation operation, Random random, ShipDataGenerator generator) {
+        switch (operation) {
+            case LIST:
+                return get("/rest/ships?" + profile.getQueries().sample(random)).accept(MediaType.APPLICATION_JSON);
+            case COUNT:
+                return get("/rest/ships/count?" + profile.getQueries().sample(random)).accept(MediaType.APPLICATION_JSON);
+            case DETAIL:
+                return get("/rest/ships/" + existingId(random)).accept(MediaType.APPLICATION_JSON);
+            case CREATE:
+                return post("/rest/ships").contentType(MediaType.APPLICATION_JSON).content(body(generator.next(), null));
+            case UPDATE:
+                return post("/rest/ships/" + existingId(random)).contentType(MediaType.APPLICATION_JSON)
+                        .content(body(generator.next(), random));
+            case DELETE:
+                Long id = created.poll();
+                return id == null ? null : delete("/rest/ships/" + id);
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    private long existingId(Random random) {
+        return 1 + (long) (random.nextDouble() * seededShips);
+    }
+
+    // a create carries every field, an update a random subset of them
+    private String body(Ship ship, Random partial) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("name", ship.getName());
+        body.put("planet", ship.getPlanet());
+        body.put("shipType", ship.getShipType());
+        body.put("prodDate", EpochDates.toMillis(ship.getProdDate()));
+        body.put("isUsed", ship.getUsed());
+        body.put("speed", ship.getSpeed());
+        body.put("crewSize", ship.getCrewSize());
+
+        if (partial != null) {
+            List<String> keys = new ArrayList<>(body.keySet());
+            Collections.shuffle(keys, partial);
+            keys.subList(0, 1 + partial.nextInt(keys.size() - 1)).forEach(body::remove);
+        }
+
+        try {
+            return mapper.writeValueAsString(body);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.space.loadtest;
+
+public enum Operation {
+    LIST,
+    COUNT,
+    DETAIL,
+    CREATE,
+    UPDATE,
+    DELETE;
+
+    public String key() {
+        return name().toLowerCase();
+    }
+}
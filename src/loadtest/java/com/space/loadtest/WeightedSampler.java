@@ -0,0 +1,45 @@
+package com.space.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Picks values with probability proportional to their weight.
+ */
+public class WeightedSampler<T> {
+
+    private final List<T> values = new ArrayList<>();
+    private long[] cumulative = new long[0];
+    private long total;
+
+    public WeightedSampler<T> add(T value, long weight) {
+        if (weight <= 0) {
+            return this;
+        }
+
+        values.add(value);
+        total += weight;
+        cumulative = Arrays.copyOf(cumulative, values.size());
+        cumulative[values.size() - 1] = total;
+        return this;
+    }
+
+    public T sample(Random random) {
+        if (total == 0) {
+            throw new IllegalStateException("Nothing to sample from");
+        }
+
+        int index = Arrays.binarySearch(cumulative, (long) (random.nextDouble() * total) + 1);
+        return values.get(index >= 0 ? index : -index - 1);
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
@@ -1,11 +1,18 @@
 package com.space.config;
 
+import com.space.repository.ShipIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -21,8 +28,19 @@ import java.util.Properties;
 @EnableTransactionManagement
 @ComponentScan("com.space.service")
 @EnableJpaRepositories(basePackages = "com.space.repository")
+@Import({MetricsConfig.class, DataSourceConfig.class, JsonConfig.class, ShardingConfig.class})
 public class AppConfig {
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    @Qualifier("jdbcDataSource")
+    private DataSource jdbcDataSource;
+
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
@@ -37,13 +55,9 @@ public class AppConfig {
     }
 
     @Bean
+    @Primary
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+        return new TimedDataSource(new CapturingDataSource(jdbcDataSource), meterRegistry);
     }
 
     @Bean
@@ -61,7 +75,12 @@ public class AppConfig {
 
     private Properties additionalProperties() {
         Properties properties = new Properties();
-        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.dialect",
+                DataSourceConfig.dialect(environment.acceptsProfiles(Profiles.of(DataSourceConfig.EMBEDDED))));
+        // ids come from ShipIdGenerator blocks, so inserts of one flush go out as a single JDBC batch
+        properties.setProperty(ShipIdGenerator.BLOCK_SIZE, environment.getProperty(ShipIdGenerator.BLOCK_SIZE, "50"));
+        properties.putAll(new JdbcTuning(environment).hibernateProperties());
+        properties.setProperty("hibernate.generate_statistics", environment.getProperty(MetricsConfig.HIBERNATE_STATISTICS, "false"));
 
         return properties;
     }
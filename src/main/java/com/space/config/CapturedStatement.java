@@ -0,0 +1,66 @@
+package com.space.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CapturedStatement {
+
+    private final String sql;
+    private final List<Object> binds = new ArrayList<>();
+    private volatile long nanos;
+    private volatile long rows;
+    private volatile int executions;
+    private volatile int fetchSize;
+
+    CapturedStatement(String sql) {
+        this.sql = sql;
+    }
+
+    synchronized void bind(int index, Object value) {
+        while (binds.size() < index) {
+            binds.add(null);
+        }
+        binds.set(index - 1, value);
+    }
+
+    void addNanos(long nanos) {
+        this.nanos += nanos;
+    }
+
+    void addRow() {
+        rows++;
+    }
+
+    void addExecution() {
+        executions++;
+    }
+
+    void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public synchronized List<Object> getBinds() {
+        return new ArrayList<>(binds);
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    // JDBC round trips of the statement: executions, with a whole batch counted once
+    public int getExecutions() {
+        return executions;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+}
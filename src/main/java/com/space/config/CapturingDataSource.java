@@ -0,0 +1,119 @@
+package com.space.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Records SQL, bind values, executions, fetch size, execution time and fetched rows into the
+ * {@link QueryCapture} of the current thread. Connections taken without an attached capture are returned
+ * unwrapped.
+ */
+public class CapturingDataSource extends DelegatingDataSource {
+
+    public CapturingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        QueryCapture capture = QueryCapture.current();
+        if (capture == null) {
+            return connection;
+        }
+
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof PreparedStatement && method.getName().startsWith("prepare")) {
+                CapturedStatement statement = new CapturedStatement((String) args[0]);
+                capture.add(statement);
+                return proxy(PreparedStatement.class, new StatementHandler((PreparedStatement) result, statement));
+            }
+            return result;
+        });
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private final PreparedStatement target;
+        private final CapturedStatement statement;
+
+        StatementHandler(PreparedStatement target, CapturedStatement statement) {
+            this.target = target;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                statement.bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                return CapturingDataSource.invoke(target, method, args);
+            }
+
+            if (name.equals("setFetchSize")) {
+                statement.setFetchSize((Integer) args[0]);
+                return CapturingDataSource.invoke(target, method, args);
+            }
+
+            if (name.startsWith("execute")) {
+                statement.addExecution();
+                long start = System.nanoTime();
+                try {
+                    Object result = CapturingDataSource.invoke(target, method, args);
+                    return result instanceof ResultSet ? rows((ResultSet) result) : result;
+                } finally {
+                    statement.addNanos(System.nanoTime() - start);
+                }
+            }
+
+            if (name.equals("getResultSet")) {
+                Object result = CapturingDataSource.invoke(target, method, args);
+                return result == null ? null : rows((ResultSet) result);
+            }
+
+            return CapturingDataSource.invoke(target, method, args);
+        }
+
+        private ResultSet rows(ResultSet resultSet) {
+            return proxy(ResultSet.class, (proxy, method, args) -> {
+                Object result = CapturingDataSource.invoke(resultSet, method, args);
+                if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                    statement.addRow();
+                }
+                return result;
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(CapturingDataSource.class.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.space.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips responses of compressible types once they grow past a threshold. The first bytes are held
+ * back until the size is known to be worth it; smaller bodies and other types, the event stream
+ * among them, go out unchanged and are flushed as soon as asked. A body written with a
+ * {@link WriteListener} is never compressed.
+ *
+ * <p>Settings: {@code cosmoport.compression.enabled}, {@code .threshold} in bytes and
+ * {@code .mime-types}, read from system properties and servlet context parameters.
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+
+    private boolean enabled;
+    private int threshold;
+    private List<MediaType> mimeTypes;
+
+    @Override
+    protected void initFilterBean() {
+        enabled = getEnvironment().getProperty("cosmoport.compression.enabled", Boolean.class, true);
+        threshold = getEnvironment().getProperty("cosmoport.compression.threshold", Integer.class, 1024);
+        mimeTypes = MediaType.parseMediaTypes(getEnvironment().getProperty("cosmoport.compression.mime-types",
+                "application/json,application/*+json,application/javascript,text/html,text/css,text/plain"));
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CompressingResponse compressing = WebUtils.getNativeResponse(response, CompressingResponse.class);
+
+        if (compressing == null) {
+            if (!enabled || !acceptsGzip(request)) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            compressing = new CompressingResponse(response);
+            response = compressing;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // an async request is finished by the dispatch that completes it
+            if (!request.isAsyncStarted()) {
+                compressing.finish();
+            }
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String coding : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+            String[] parts = StringUtils.tokenizeToStringArray(coding, ";");
+            if (parts.length > 0 && (GZIP.equalsIgnoreCase(parts[0]) || "*".equals(parts[0]))) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        for (MediaType mimeType : mimeTypes) {
+            if (mimeType.includes(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class CompressingResponse extends HttpServletResponseWrapper {
+
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream(threshold);
+        private final HoldingOutputStream stream = new HoldingOutputStream();
+        private OutputStream target;
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        CompressingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(stream, Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        }
+
+        // held back until it is clear whether the body gets compressed
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (target == null) {
+                contentLength = len;
+            } else if (!(target instanceof GZIPOutputStream)) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        // message converters set the length as a header
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.addIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (flushPending()) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (target == null) {
+                pending.reset();
+            }
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            if (target == null) {
+                pending.reset();
+                contentLength = -1;
+            }
+            super.reset();
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            if (target == null) {
+                if (pending.size() + length <= threshold) {
+                    pending.write(bytes, offset, length);
+                    return;
+                }
+                start(isCompressible(getContentType()) && isCompressibleStatus());
+            }
+            target.write(bytes, offset, length);
+        }
+
+        private boolean isCompressibleStatus() {
+            int status = getStatus();
+            return status != SC_NO_CONTENT && status != SC_NOT_MODIFIED && !containsHeader(HttpHeaders.CONTENT_ENCODING);
+        }
+
+        private void start(boolean compress) throws IOException {
+            if (compress) {
+                addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                super.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+                target = new GZIPOutputStream(super.getOutputStream(), 8192, true);
+            } else {
+                if (isCompressible(getContentType())) {
+                    addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                }
+                if (contentLength >= 0) {
+                    super.setContentLengthLong(contentLength);
+                }
+                target = super.getOutputStream();
+            }
+            pending.writeTo(target);
+            pending.reset();
+        }
+
+        // converters flush at the end of every body, so a compressible one keeps being held back
+        private boolean flushPending() throws IOException {
+            if (target == null) {
+                if (isCompressible(getContentType())) {
+                    return false;
+                }
+                start(false);
+            }
+            target.flush();
+            return true;
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (target == null) {
+                if (pending.size() == 0 && contentLength < 0) {
+                    return;
+                }
+                start(false);
+            }
+            if (target instanceof GZIPOutputStream) {
+                ((GZIPOutputStream) target).finish();
+            }
+            target.flush();
+        }
+
+        private class HoldingOutputStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                CompressingResponse.this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                CompressingResponse.this.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                flushPending();
+            }
+
+            // held back bytes are buffered in memory, so only the container's stream can block
+            @Override
+            public boolean isReady() {
+                try {
+                    return target == null || CompressingResponse.super.getOutputStream().isReady();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            // the container decides when non-blocking writes happen and no dispatch finishes them, so the
+            // body goes out as written, uncompressed
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    if (target == null) {
+                        start(false);
+                    }
+                    CompressingResponse.super.getOutputStream().setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.space.config;
+
+import com.space.service.ShipDataGenerator;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Physical JDBC data source. MySQL by default, whose ship table may have been partitioned beforehand with
+ * the {@link ShipPartitioning} migration; the {@code embedded} profile switches to an in-memory H2 database in MySQL
+ * mode initialised from {@code init.sql}, optionally topped up with generated ships. Either way the
+ * {@code ship_sequence} row that ship ids are drawn from is created or moved past the existing ids.
+ * MySQL connections get the driver settings of {@link JdbcTuning}.
+ *
+ * <p>Both sit behind a bounded pool of {@code cosmoport.db.pool.size} connections, 20 by default like the
+ * DB threads of the {@code async} profile. A caller beyond it waits up to {@code cosmoport.db.pool.timeout}
+ * ms for a free connection, which is the wait that load shedding watches.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    public static final String EMBEDDED = "embedded";
+
+    @Bean("jdbcDataSource")
+    @Profile("!" + EMBEDDED)
+    public DataSource mysqlDataSource(@Value("${cosmoport.db.url:jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC}") String url,
+                                      @Value("${cosmoport.db.username:root}") String username,
+                                      @Value("${cosmoport.db.password:root}") String password,
+                                      Environment environment) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        dataSource.setUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setConnectionProperties(new JdbcTuning(environment).mysqlProperties());
+
+        if (environment.containsProperty("cosmoport.db.partitioning")) {
+            LOG.warn("cosmoport.db.partitioning is ignored on startup, partition the ship table with the ShipPartitioning migration");
+        }
+        syncShipSequence(dataSource);
+        return pooled("cosmoport", dataSource, environment);
+    }
+
+    @Bean("jdbcDataSource")
+    @Profile(EMBEDDED)
+    public DataSource embeddedDataSource(@Value("${cosmoport.embedded.seed-rows:0}") int seedRows,
+                                         Environment environment) throws SQLException {
+        DataSource dataSource = embedded("cosmoport");
+        new ResourceDatabasePopulator(new ClassPathResource("init.sql")).execute(dataSource);
+
+        if (seedRows > 0) {
+            new ShipDataGenerator(42).insert(dataSource, seedRows);
+        }
+        syncShipSequence(dataSource);
+
+        return pooled("cosmoport", dataSource, environment);
+    }
+
+    // ships inserted around the sequence, e.g. by scripts or ShipDataGenerator, must not be handed out again
+    private static void syncShipSequence(DataSource dataSource) {
+        new ResourceDatabasePopulator(new ClassPathResource("db/ship-sequence.sql")).execute(dataSource);
+    }
+
+    // connections of the given data source handed out by a bounded pool, which closes them on shutdown
+    public static HikariDataSource pooled(String name, DataSource dataSource, Environment environment) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setDataSource(dataSource);
+        config.setMaximumPoolSize(environment.getProperty("cosmoport.db.pool.size", Integer.class, 20));
+        config.setConnectionTimeout(environment.getProperty("cosmoport.db.pool.timeout", Long.class, 30000L));
+        return new HikariDataSource(config);
+    }
+
+    public static String dialect(boolean embedded) {
+        return embedded ? "org.hibernate.dialect.H2Dialect" : "org.hibernate.dialect.MySQL5Dialect";
+    }
+
+    public static DataSource embedded(String schema) {
+        return embedded(schema, schema);
+    }
+
+    // in-memory H2 database in MySQL mode whose connections all start in the given schema
+    public static DataSource embedded(String database, String schema) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:" + database + ";MODE=MySQL;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1;" +
+                "INIT=CREATE SCHEMA IF NOT EXISTS " + schema + "\\;SET SCHEMA " + schema);
+        return dataSource;
+    }
+}
@@ -0,0 +1,40 @@
+package com.space.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.space.model.EpochDates;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Reads a production date sent as epoch milliseconds, the format the API has always used, or as an
+ * ISO {@code yyyy-MM-dd} string.
+ */
+public class EpochMillisDateDeserializer extends StdScalarDeserializer<LocalDate> {
+
+    public EpochMillisDateDeserializer() {
+        super(LocalDate.class);
+    }
+
+    @Override
+    public LocalDate deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+            return EpochDates.toLocalDate(p.getLongValue());
+        }
+        if (p.hasToken(JsonToken.VALUE_STRING)) {
+            String text = p.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return text.matches("-?\\d+") ? EpochDates.toLocalDate(Long.parseLong(text)) : LocalDate.parse(text);
+            } catch (RuntimeException e) {
+                return (LocalDate) ctxt.handleWeirdStringValue(LocalDate.class, text, "not epoch millis or yyyy-MM-dd");
+            }
+        }
+        return (LocalDate) ctxt.handleUnexpectedToken(LocalDate.class, p);
+    }
+}
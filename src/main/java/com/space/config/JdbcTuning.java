@@ -0,0 +1,78 @@
+package com.space.config;
+
+import org.springframework.core.env.Environment;
+
+import java.util.Properties;
+
+/**
+ * JDBC settings of the ship persistence units, chosen with {@code cosmoport.jpa.tuning}: {@code performance}
+ * by default, or {@code none} for plain Hibernate and driver defaults. Every setting of the profile can be
+ * overridden on its own:
+ * <ul>
+ *     <li>{@code cosmoport.jpa.batch-size} statements per JDBC batch, with inserts and updates ordered by
+ *     entity so a flush sends one batch per table</li>
+ *     <li>{@code cosmoport.jpa.fetch-size} rows per round trip of a scan</li>
+ *     <li>{@code cosmoport.jpa.plan-cache-size} and {@code .plan-parameter-cache-size} compiled query plans
+ *     kept, with IN lists padded so they share plans</li>
+ *     <li>{@code cosmoport.db.rewrite-batched-statements}, {@code .use-server-prep-stmts},
+ *     {@code .cache-prep-stmts}, {@code .prep-stmt-cache-size} and {@code .prep-stmt-cache-sql-limit}
+ *     for MySQL connections, whose statement caches are kept per pooled connection</li>
+ * </ul>
+ */
+public class JdbcTuning {
+
+    public static final String PERFORMANCE = "performance";
+    public static final String NONE = "none";
+
+    private final Environment environment;
+    private final boolean tuned;
+
+    public JdbcTuning(Environment environment) {
+        this.environment = environment;
+        String tuning = environment.getProperty("cosmoport.jpa.tuning", PERFORMANCE);
+        if (!PERFORMANCE.equals(tuning) && !NONE.equals(tuning)) {
+            throw new IllegalArgumentException("Unknown JDBC tuning " + tuning + ", expected " + PERFORMANCE + " or " + NONE);
+        }
+        this.tuned = PERFORMANCE.equals(tuning);
+    }
+
+    public boolean isTuned() {
+        return tuned;
+    }
+
+    // Hibernate settings of the profile, added to the JPA properties of a persistence unit
+    public Properties hibernateProperties() {
+        Properties properties = new Properties();
+        if (!tuned) {
+            return properties;
+        }
+
+        properties.setProperty("hibernate.jdbc.batch_size", environment.getProperty("cosmoport.jpa.batch-size", "50"));
+        properties.setProperty("hibernate.order_inserts", "true");
+        properties.setProperty("hibernate.order_updates", "true");
+        properties.setProperty("hibernate.jdbc.batch_versioned_data", "true");
+        properties.setProperty("hibernate.jdbc.fetch_size", environment.getProperty("cosmoport.jpa.fetch-size", "100"));
+        properties.setProperty("hibernate.query.plan_cache_max_size", environment.getProperty("cosmoport.jpa.plan-cache-size", "2048"));
+        properties.setProperty("hibernate.query.plan_parameter_metadata_max_size",
+                environment.getProperty("cosmoport.jpa.plan-parameter-cache-size", "128"));
+        properties.setProperty("hibernate.query.in_clause_parameter_padding", "true");
+        return properties;
+    }
+
+    // Connector/J properties of the profile, for the connections of a MySQL data source
+    public Properties mysqlProperties() {
+        Properties properties = new Properties();
+        if (!tuned) {
+            return properties;
+        }
+
+        properties.setProperty("rewriteBatchedStatements", environment.getProperty("cosmoport.db.rewrite-batched-statements", "true"));
+        // server-side statements hold a prepared statement on the server for every pooled connection that ran the query
+        properties.setProperty("useServerPrepStmts", environment.getProperty("cosmoport.db.use-server-prep-stmts", "false"));
+        // the cache lives on each connection, so it only pays off because DataSourceConfig pools them
+        properties.setProperty("cachePrepStmts", environment.getProperty("cosmoport.db.cache-prep-stmts", "true"));
+        properties.setProperty("prepStmtCacheSize", environment.getProperty("cosmoport.db.prep-stmt-cache-size", "250"));
+        properties.setProperty("prepStmtCacheSqlLimit", environment.getProperty("cosmoport.db.prep-stmt-cache-sql-limit", "2048"));
+        return properties;
+    }
+}
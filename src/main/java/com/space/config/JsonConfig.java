@@ -0,0 +1,65 @@
+package com.space.config;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.space.model.Ship;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+
+import java.time.LocalDate;
+
+/**
+ * The {@link ObjectMapper}s of the application, shared by the HTTP message converters and anything
+ * else writing JSON. Mappers are thread-safe and cache their serializers, so a single preconfigured
+ * instance per format is both cheaper and keeps every output identical.
+ *
+ * <p>Internal consumers can ask for Smile or CBOR through {@code Accept}. Both binary formats carry
+ * the same fields with the date as epoch millis and the ship type as its ordinal.
+ */
+@Configuration
+public class JsonConfig {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+    public static final MediaType APPLICATION_CBOR = MediaType.valueOf("application/cbor");
+
+    @Bean
+    @Primary
+    public ObjectMapper objectMapper() {
+        return createObjectMapper();
+    }
+
+    @Bean
+    public ObjectMapper smileObjectMapper() {
+        return createBinaryMapper(new SmileFactory());
+    }
+
+    @Bean
+    public ObjectMapper cborObjectMapper() {
+        return createBinaryMapper(new CBORFactory());
+    }
+
+    public static ObjectMapper createObjectMapper() {
+        return configure(new ObjectMapper());
+    }
+
+    public static ObjectMapper createBinaryMapper(JsonFactory factory) {
+        return configure(new ObjectMapper(factory)).enable(SerializationFeature.WRITE_ENUMS_USING_INDEX);
+    }
+
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        mapper.registerModule(new SimpleModule("cosmoport")
+                .addSerializer(Ship.class, new ShipSerializer())
+                .addDeserializer(LocalDate.class, new EpochMillisDateDeserializer()));
+        return mapper;
+    }
+}
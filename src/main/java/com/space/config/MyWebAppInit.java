@@ -1,7 +1,10 @@
 package com.space.config;
 
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
 
+import javax.servlet.Filter;
+
 public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletInitializer {
 
     @Override
@@ -14,6 +17,11 @@ public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletIniti
         return new Class[] {WebConfig.class};
     }
 
+    @Override
+    protected Filter[] getServletFilters() {
+        return new Filter[]{new CompressionFilter(), new ResourceUrlEncodingFilter()};
+    }
+
     @Override
     protected String[] getServletMappings() {
         return new String[]{"/"};
@@ -0,0 +1,93 @@
+package com.space.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SQL statements executed on behalf of one request. {@link CapturingDataSource} only records while a
+ * capture is attached to the current thread; everywhere else it hands out the plain connection. A capture
+ * opened inside another one, such as the slow request log's inside a test's, passes its statements on.
+ */
+public class QueryCapture {
+
+    private static final ThreadLocal<QueryCapture> CURRENT = new ThreadLocal<>();
+
+    private final List<CapturedStatement> statements = Collections.synchronizedList(new ArrayList<>());
+    private final QueryCapture parent;
+
+    public QueryCapture() {
+        this(null);
+    }
+
+    public QueryCapture(QueryCapture parent) {
+        this.parent = parent;
+    }
+
+    public static QueryCapture current() {
+        return CURRENT.get();
+    }
+
+    public static void attach(QueryCapture capture) {
+        if (capture == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(capture);
+        }
+    }
+
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    // runs the task with the capture of the calling thread attached, for work handed to other executors
+    public static Runnable propagate(Runnable task) {
+        QueryCapture capture = current();
+        if (capture == null) {
+            return task;
+        }
+
+        return () -> {
+            QueryCapture previous = current();
+            attach(capture);
+            try {
+                task.run();
+            } finally {
+                attach(previous);
+            }
+        };
+    }
+
+    public QueryCapture getParent() {
+        return parent;
+    }
+
+    void add(CapturedStatement statement) {
+        statements.add(statement);
+        if (parent != null) {
+            parent.add(statement);
+        }
+    }
+
+    public List<CapturedStatement> getStatements() {
+        synchronized (statements) {
+            return new ArrayList<>(statements);
+        }
+    }
+
+    public long getDbNanos() {
+        long nanos = 0;
+        for (CapturedStatement statement : getStatements()) {
+            nanos += statement.getNanos();
+        }
+        return nanos;
+    }
+
+    public long getRows() {
+        long rows = 0;
+        for (CapturedStatement statement : getStatements()) {
+            rows += statement.getRows();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,121 @@
+package com.space.config;
+
+import com.space.repository.ShardedShipRepository;
+import com.space.repository.ShipIdAllocator;
+import com.space.repository.ShipShard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@code sharded} profile: ships spread over several databases behind a {@link ShardedShipRepository},
+ * which takes precedence over the single-database repository. Shard 0 is the regular data source and
+ * also holds the id sequence. The other shards are the MySQL databases listed in
+ * {@code cosmoport.shards.urls}, each behind a pool like the regular one, or without a list
+ * {@code cosmoport.shards.count - 1} in-memory H2 databases that are filled by moving the ships of
+ * shard 0 over.
+ *
+ * <p>{@code cosmoport.shards.range-size} consecutive ids go to the same shard, {@code .id-block} ids are
+ * reserved per sequence round trip, {@code .threads} run the parallel shard queries and
+ * {@code .rebalance} moves misplaced ships on startup, which new in-memory shards do by default.
+ */
+@Configuration
+@Profile(ShardingConfig.SHARDED)
+public class ShardingConfig {
+
+    public static final String SHARDED = "sharded";
+
+    @Bean
+    @Primary
+    public ShardedShipRepository shardedShipRepository(DataSource dataSource, EntityManagerFactory entityManagerFactory,
+                                                       @Value("${cosmoport.shards.urls:}") String urls,
+                                                       @Value("${cosmoport.shards.count:2}") int count,
+                                                       @Value("${cosmoport.db.username:root}") String username,
+                                                       @Value("${cosmoport.db.password:root}") String password,
+                                                       @Value("${cosmoport.shards.range-size:64}") int rangeSize,
+                                                       @Value("${cosmoport.shards.id-block:50}") int idBlock,
+                                                       @Value("${cosmoport.shards.threads:0}") int threads,
+                                                       @Value("${cosmoport.shards.rebalance:#{null}}") Boolean rebalance,
+                                                       Environment environment) {
+        JdbcTuning tuning = new JdbcTuning(environment);
+        boolean embedded = !StringUtils.hasText(urls);
+        List<DataSource> dataSources = new ArrayList<>();
+        if (embedded) {
+            for (int i = 1; i < count; i++) {
+                dataSources.add(embeddedShard(i));
+            }
+        } else {
+            for (String url : StringUtils.commaDelimitedListToStringArray(urls)) {
+                dataSources.add(mysqlShard(dataSources.size() + 1, url.trim(), username, password, tuning, environment));
+            }
+        }
+
+        List<ShipShard> shards = new ArrayList<>();
+        shards.add(new ShipShard(0, dataSource, entityManagerFactory, false));
+        for (DataSource shardDataSource : dataSources) {
+            int index = shards.size();
+            shards.add(new ShipShard(index, shardDataSource, entityManagerFactory(index, shardDataSource, embedded, tuning), true));
+        }
+
+        // the allocator starts above existing ids, which it only needs to look up without a sequence row
+        AtomicReference<ShardedShipRepository> repository = new AtomicReference<>();
+        ShipIdAllocator ids = new ShipIdAllocator(dataSource, idBlock, () -> repository.get().maxId() + 1);
+        repository.set(new ShardedShipRepository(shards, ids, rangeSize, threads > 0 ? threads : 2 * shards.size()));
+
+        if (rebalance == null ? embedded : rebalance) {
+            repository.get().rebalance();
+        }
+        return repository.get();
+    }
+
+    private static DataSource embeddedShard(int index) {
+        DataSource dataSource = DataSourceConfig.embedded("shard" + index, "cosmoport");
+        new ResourceDatabasePopulator(new ClassPathResource("init.sql")).execute(dataSource);
+        new JdbcTemplate(dataSource).update("DELETE FROM ship");
+        return new CapturingDataSource(dataSource);
+    }
+
+    private static DataSource mysqlShard(int index, String url, String username, String password, JdbcTuning tuning,
+                                         Environment environment) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        dataSource.setUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setConnectionProperties(tuning.mysqlProperties());
+        return new CapturingDataSource(DataSourceConfig.pooled("cosmoport-shard" + index, dataSource, environment));
+    }
+
+    private static EntityManagerFactory entityManagerFactory(int index, DataSource dataSource, boolean embedded, JdbcTuning tuning) {
+        LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+        em.setPersistenceUnitName("shard" + index);
+        em.setDataSource(dataSource);
+        em.setPackagesToScan("com.space.model");
+        em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.dialect", DataSourceConfig.dialect(embedded));
+        properties.putAll(tuning.hibernateProperties());
+        em.setJpaProperties(properties);
+
+        em.afterPropertiesSet();
+        return em.getObject();
+    }
+}
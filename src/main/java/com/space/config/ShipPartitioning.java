@@ -0,0 +1,82 @@
+package com.space.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Optional MySQL partitioning of the ship table. {@code ship-type} lists the table by ship type and
+ * {@code production-era} splits it into ranges of production years, so filters on those columns only
+ * read the matching partitions. {@code none} leaves the table as it is.
+ *
+ * <p>Partitioning rebuilds the whole table under a blocking ALTER, so it is a migration run once, before
+ * the nodes start, and never a side effect of starting one:
+ * <pre>
+ * mvn -Ppartitioning verify -Dpartitioning=ship-type -Dcosmoport.db.url=... -Dcosmoport.db.username=... -Dcosmoport.db.password=...
+ * </pre>
+ * A scheme's script under {@code db/partitioning} only runs when the table is not already partitioned
+ * that way; a table partitioned by the other scheme is unpartitioned first.
+ */
+public enum ShipPartitioning {
+
+    NONE(null, null),
+    SHIP_TYPE("db/partitioning/ship-by-type.sql", "LIST COLUMNS"),
+    PRODUCTION_ERA("db/partitioning/ship-by-era.sql", "RANGE");
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShipPartitioning.class);
+
+    private final String script;
+    private final String method;
+
+    ShipPartitioning(String script, String method) {
+        this.script = script;
+        this.method = method;
+    }
+
+    // java -cp ... com.space.config.ShipPartitioning <none|ship-type|production-era>, connecting with the
+    // cosmoport.db.url, .username and .password system properties
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Expected the partitioning scheme: none, ship-type or production-era");
+        }
+        String url = System.getProperty("cosmoport.db.url");
+        if (url == null || url.isEmpty()) {
+            throw new IllegalArgumentException("Expected the database to partition in -Dcosmoport.db.url");
+        }
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url,
+                System.getProperty("cosmoport.db.username", "root"), System.getProperty("cosmoport.db.password", "root"));
+        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        of(args[0]).apply(dataSource);
+    }
+
+    public static ShipPartitioning of(String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+
+    public void apply(DataSource dataSource) {
+        if (script == null) {
+            return;
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<String> methods = jdbcTemplate.queryForList("SELECT DISTINCT PARTITION_METHOD FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ship' AND PARTITION_METHOD IS NOT NULL", String.class);
+        if (methods.contains(method)) {
+            return;
+        }
+
+        if (!methods.isEmpty()) {
+            LOG.info("Removing {} partitioning of the ship table", methods);
+            jdbcTemplate.execute("ALTER TABLE ship REMOVE PARTITIONING");
+        }
+        LOG.info("Partitioning the ship table with {}", script);
+        new ResourceDatabasePopulator(new ClassPathResource(script)).execute(dataSource);
+    }
+}
@@ -0,0 +1,65 @@
+package com.space.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.space.model.EpochDates;
+import com.space.model.Ship;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Writes a {@link Ship} field by field with pre-encoded names, skipping the bean introspection and
+ * reflective field access of the default serializer. The output is the same as with field visibility:
+ * declaration order, nulls included, the date as epoch milliseconds and the ship type as its name,
+ * or its ordinal when {@link SerializationFeature#WRITE_ENUMS_USING_INDEX} is on.
+ */
+public class ShipSerializer extends StdSerializer<Ship> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString PLANET = new SerializedString("planet");
+    private static final SerializableString SHIP_TYPE = new SerializedString("shipType");
+    private static final SerializableString PROD_DATE = new SerializedString("prodDate");
+    private static final SerializableString IS_USED = new SerializedString("isUsed");
+    private static final SerializableString SPEED = new SerializedString("speed");
+    private static final SerializableString CREW_SIZE = new SerializedString("crewSize");
+    private static final SerializableString RATING = new SerializedString("rating");
+
+    public ShipSerializer() {
+        super(Ship.class);
+    }
+
+    @Override
+    public void serialize(Ship ship, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(ship);
+
+        gen.writeFieldName(ID);
+        if (ship.getId() == null) gen.writeNull(); else gen.writeNumber(ship.getId());
+        gen.writeFieldName(NAME);
+        gen.writeString(ship.getName());
+        gen.writeFieldName(PLANET);
+        gen.writeString(ship.getPlanet());
+        gen.writeFieldName(SHIP_TYPE);
+        if (ship.getShipType() == null) gen.writeNull();
+        else if (provider.isEnabled(SerializationFeature.WRITE_ENUMS_USING_INDEX)) gen.writeNumber(ship.getShipType().ordinal());
+        else gen.writeString(ship.getShipType().name());
+        gen.writeFieldName(PROD_DATE);
+        LocalDate prodDate = ship.getProdDate();
+        if (prodDate == null) gen.writeNull(); else gen.writeNumber(EpochDates.toMillis(prodDate));
+        gen.writeFieldName(IS_USED);
+        if (ship.getUsed() == null) gen.writeNull(); else gen.writeBoolean(ship.getUsed());
+        gen.writeFieldName(SPEED);
+        if (ship.getSpeed() == null) gen.writeNull(); else gen.writeNumber(ship.getSpeed());
+        gen.writeFieldName(CREW_SIZE);
+        if (ship.getCrewSize() == null) gen.writeNull(); else gen.writeNumber(ship.getCrewSize());
+        gen.writeFieldName(RATING);
+        if (ship.getRating() == null) gen.writeNull(); else gen.writeNumber(ship.getRating());
+
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,66 @@
+package com.space.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long callers wait for a JDBC connection. In front of the pool of {@link DataSourceConfig}
+ * that is the queueing for a free pooled connection, which is where pool exhaustion shows up first; a
+ * data source without a pool would only show how long opening a connection takes. A moving average of
+ * the recent waits is kept for load shedding.
+ */
+public class TimedDataSource extends DelegatingDataSource {
+
+    // waits older than this no longer count as recent, so an idle pool reads as healthy again
+    private static final long RECENT = TimeUnit.SECONDS.toNanos(1);
+
+    private final Timer acquire;
+    private volatile double recentWait;
+    private volatile long recentAt = System.nanoTime() - 2 * RECENT;
+
+    public TimedDataSource(DataSource targetDataSource, MeterRegistry registry) {
+        super(targetDataSource);
+        this.acquire = Timer.builder("jdbc.connection.acquire")
+                .description("Time spent waiting for a pooled JDBC connection")
+                .register(registry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection();
+        } finally {
+            record(start);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            record(start);
+        }
+    }
+
+    private void record(long start) {
+        long now = System.nanoTime();
+        acquire.record(now - start, TimeUnit.NANOSECONDS);
+        // racing updates may drop a sample, which an average can afford
+        recentWait = now - recentAt > RECENT ? now - start : 0.8 * recentWait + 0.2 * (now - start);
+        recentAt = now;
+    }
+
+    // moving average of the connection waits of the last second, in ms
+    public double getRecentWait() {
+        return System.nanoTime() - recentAt > RECENT ? 0 : recentWait / 1_000_000;
+    }
+}
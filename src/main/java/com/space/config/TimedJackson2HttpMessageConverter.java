@@ -0,0 +1,52 @@
+package com.space.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+public class TimedJackson2HttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    private final Timer serialization;
+
+    public static TimedJackson2HttpMessageConverter json(ObjectMapper objectMapper, MeterRegistry registry) {
+        return new TimedJackson2HttpMessageConverter(objectMapper, registry, "json",
+                MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    // binary formats have no character set, so none is added to the content type
+    public static TimedJackson2HttpMessageConverter binary(ObjectMapper objectMapper, MeterRegistry registry,
+                                                          String format, MediaType mediaType) {
+        TimedJackson2HttpMessageConverter converter =
+                new TimedJackson2HttpMessageConverter(objectMapper, registry, format, mediaType);
+        converter.setDefaultCharset(null);
+        return converter;
+    }
+
+    private TimedJackson2HttpMessageConverter(ObjectMapper objectMapper, MeterRegistry registry,
+                                              String format, MediaType... supportedMediaTypes) {
+        super(objectMapper, supportedMediaTypes);
+        this.serialization = Timer.builder("http.server.serialization")
+                .description("Time spent writing responses")
+                .tag("format", format)
+                .register(registry);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            serialization.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
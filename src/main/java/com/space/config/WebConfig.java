@@ -1,27 +1,65 @@
 package com.space.config;
 
-import com.fasterxml.jackson.annotation.JsonAutoDetect;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.AdmissionInterceptor;
+import com.space.controller.MetricsInterceptor;
+import com.space.controller.SlowRequestInterceptor;
+import com.space.service.SlowRequestLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableWebMvc
 @ComponentScan("com.space.controller")
 public class WebConfig implements WebMvcConfigurer {
 
+    @Value("${cosmoport.async.timeout:30000}")
+    private long asyncTimeout;
+
+    @Value("${cosmoport.resources.max-age:365}")
+    private long resourcesMaxAge;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("smileObjectMapper")
+    private ObjectMapper smileObjectMapper;
+
+    @Autowired
+    @Qualifier("cborObjectMapper")
+    private ObjectMapper cborObjectMapper;
+
+    @Autowired
+    private SlowRequestLog slowRequestLog;
+
+    @Autowired
+    private AdmissionInterceptor admissionInterceptor;
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -39,14 +77,46 @@ public class WebConfig implements WebMvcConfigurer {
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
+        // pages link the content-hashed URLs (ResourceUrlEncodingFilter), so each version can be cached for good
+        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/")
+                .setCacheControl(immutable(CacheControl.maxAge(resourcesMaxAge, TimeUnit.DAYS).cachePublic()))
+                .resourceChain(true)
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    // the CacheControl of this Spring version has no immutable directive
+    private static CacheControl immutable(CacheControl cacheControl) {
+        return new CacheControl() {
+            @Override
+            public String getHeaderValue() {
+                return cacheControl.getHeaderValue() + ", immutable";
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new MetricsInterceptor(meterRegistry)).addPathPatterns("/rest/**");
+        registry.addInterceptor(admissionInterceptor).addPathPatterns("/rest/**")
+                .excludePathPatterns("/rest/admin/**", "/rest/ships/events");
+        registry.addInterceptor(new SlowRequestInterceptor(slowRequestLog)).addPathPatterns("/rest/**")
+                .excludePathPatterns("/rest/admin/**", "/rest/ships/events");
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncTimeout);
     }
 
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        converters.add(converter);
+        // JSON stays first so it is the default when the client does not ask for a format
+        converters.add(TimedJackson2HttpMessageConverter.json(objectMapper, meterRegistry));
+        converters.add(TimedJackson2HttpMessageConverter.binary(smileObjectMapper, meterRegistry, "smile",
+                JsonConfig.APPLICATION_SMILE));
+        converters.add(TimedJackson2HttpMessageConverter.binary(cborObjectMapper, meterRegistry, "cbor",
+                JsonConfig.APPLICATION_CBOR));
+        // the text/plain framing of server-sent events; last, so it never takes over a JSON response
+        converters.add(new StringHttpMessageConverter(StandardCharsets.UTF_8));
     }
 }
\ No newline at end of file
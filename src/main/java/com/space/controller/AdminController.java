@@ -0,0 +1,114 @@
+package com.space.controller;
+
+import com.space.service.ParallelPageQueries;
+import com.space.service.ShipInvalidationBus;
+import com.space.service.ShipPagePrefetcher;
+import com.space.service.ShipQueryCoalescer;
+import com.space.service.ShipWriteBuffer;
+import com.space.service.SlowRequest;
+import com.space.service.SlowRequestLog;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/rest/admin")
+public class AdminController {
+
+    @Autowired
+    private ShipQueryCoalescer shipQueryCoalescer;
+
+    @Autowired
+    private PrometheusMeterRegistry meterRegistry;
+
+    @Autowired
+    private SlowRequestLog slowRequestLog;
+
+    @Autowired
+    private ShipWriteBuffer shipWriteBuffer;
+
+    @Autowired
+    private ParallelPageQueries parallelPageQueries;
+
+    @Autowired
+    private ShipInvalidationBus shipInvalidationBus;
+
+    @Autowired
+    private AdmissionInterceptor admissionInterceptor;
+
+    @Autowired
+    private ShipPagePrefetcher shipPagePrefetcher;
+
+    @GetMapping("/slow-requests")
+    @ResponseStatus(HttpStatus.OK)
+    public List<SlowRequest> getSlowRequests() {
+        return slowRequestLog.getSlowRequests();
+    }
+
+    @DeleteMapping("/slow-requests")
+    @ResponseStatus(HttpStatus.OK)
+    public void clearSlowRequests() {
+        slowRequestLog.clear();
+    }
+
+    @GetMapping("/prometheus")
+    public void scrape(HttpServletResponse response) throws IOException {
+        response.setContentType(TextFormat.CONTENT_TYPE_004);
+        meterRegistry.scrape(response.getWriter());
+    }
+
+    @GetMapping("/coalescing")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Object> getCoalescing() {
+        return shipQueryCoalescer.getStatistics();
+    }
+
+    @GetMapping("/parallel-count")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Object> getParallelCount() {
+        return parallelPageQueries.getStatistics();
+    }
+
+    @GetMapping("/admission")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Object> getAdmission() {
+        return admissionInterceptor.getStatistics();
+    }
+
+    @GetMapping("/prefetch")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Object> getPrefetch() {
+        return shipPagePrefetcher.getStatistics();
+    }
+
+    @GetMapping("/invalidation")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Object> getInvalidation() {
+        return shipInvalidationBus.getStatistics();
+    }
+
+    @GetMapping("/write-behind")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Object> getWriteBehind() {
+        return shipWriteBuffer.getStatistics();
+    }
+
+    @PostMapping("/write-behind/flush")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<String, Object> flushWriteBehind() {
+        shipWriteBuffer.flush();
+        return shipWriteBuffer.getStatistics();
+    }
+}
@@ -0,0 +1,220 @@
+package com.space.controller;
+
+import com.space.ServiceUnavailableException;
+import com.space.TooManyRequestsException;
+import com.space.config.TimedDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Opt-in admission control of the ship API ({@code cosmoport.admission.enabled}), checked before a
+ * request reaches its handler:
+ * <ul>
+ *     <li>each client has a token bucket of {@code .burst} requests refilled at {@code .rate} per second;
+ *     beyond it 429. A client is its authenticated user, else its {@code .client-header} API key when the
+ *     key is one of the {@code .api-keys}, else its address, so made-up keys neither escape the limit nor
+ *     grow the buckets</li>
+ *     <li>list and count requests are shed with 503 while the recent wait for a pooled JDBC connection exceeds
+ *     {@code .shed.pool-wait} ms, so lookups and writes still get connections</li>
+ *     <li>at most {@code .<endpoint>.concurrency} requests of each endpoint class run at once; beyond it 503</li>
+ * </ul>
+ * Rejections carry a Retry-After. A permit is held until the request completes, across async dispatches.
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT = AdmissionInterceptor.class.getName() + ".PERMIT";
+
+    // buckets beyond this many clients are dropped once they are full again
+    private static final int MAX_CLIENTS = 10_000;
+
+    enum Endpoint {
+        LIST,
+        COUNT,
+        LOOKUP,
+        WRITE
+    }
+
+    private final boolean enabled;
+    private final double rate;
+    private final double burst;
+    private final String clientHeader;
+    private final Set<String> apiKeys;
+    private final double shedPoolWait;
+    private final TimedDataSource pool;
+
+    private final Map<Endpoint, Semaphore> permits = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Integer> limits = new EnumMap<>(Endpoint.class);
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final Counter rateLimited;
+    private final Counter shed;
+    private final Counter saturated;
+
+    public AdmissionInterceptor(@Value("${cosmoport.admission.enabled:false}") boolean enabled,
+                                @Value("${cosmoport.admission.rate:20}") double rate,
+                                @Value("${cosmoport.admission.burst:40}") double burst,
+                                @Value("${cosmoport.admission.client-header:X-API-Key}") String clientHeader,
+                                @Value("${cosmoport.admission.api-keys:}") String[] apiKeys,
+                                @Value("${cosmoport.admission.shed.pool-wait:500}") double shedPoolWait,
+                                @Value("${cosmoport.admission.list.concurrency:8}") int listConcurrency,
+                                @Value("${cosmoport.admission.count.concurrency:8}") int countConcurrency,
+                                @Value("${cosmoport.admission.lookup.concurrency:32}") int lookupConcurrency,
+                                @Value("${cosmoport.admission.write.concurrency:8}") int writeConcurrency,
+                                DataSource dataSource, MeterRegistry registry) {
+        this.enabled = enabled;
+        this.rate = rate;
+        this.burst = burst;
+        this.clientHeader = clientHeader;
+        this.apiKeys = new HashSet<>(Arrays.asList(StringUtils.trimArrayElements(apiKeys)));
+        this.shedPoolWait = shedPoolWait;
+        this.pool = dataSource instanceof TimedDataSource ? (TimedDataSource) dataSource : null;
+
+        limits.put(Endpoint.LIST, listConcurrency);
+        limits.put(Endpoint.COUNT, countConcurrency);
+        limits.put(Endpoint.LOOKUP, lookupConcurrency);
+        limits.put(Endpoint.WRITE, writeConcurrency);
+        for (Map.Entry<Endpoint, Integer> limit : limits.entrySet()) {
+            Semaphore semaphore = new Semaphore(limit.getValue());
+            permits.put(limit.getKey(), semaphore);
+            Gauge.builder("ship.admission.in.flight", semaphore, s -> limit.getValue() - s.availablePermits())
+                    .description("Admitted requests of the endpoint class that have not completed")
+                    .tag("endpoint", limit.getKey().name().toLowerCase())
+                    .register(registry);
+        }
+
+        this.rateLimited = rejected(registry, "rate");
+        this.shed = rejected(registry, "shed");
+        this.saturated = rejected(registry, "concurrency");
+    }
+
+    private static Counter rejected(MeterRegistry registry, String reason) {
+        return Counter.builder("ship.admission.rejected")
+                .description("Requests turned away before reaching their handler")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // an async dispatch was admitted with the request
+        if (!enabled || request.getAttribute(PERMIT) != null) {
+            return true;
+        }
+
+        String client = client(request);
+        long wait = bucket(client).take(System.currentTimeMillis());
+        if (wait > 0) {
+            rateLimited.increment();
+            retryAfter(response, wait);
+            throw new TooManyRequestsException("Rate Limit Of " + client + " Exceeded!");
+        }
+
+        Endpoint endpoint = endpoint(request);
+        if ((endpoint == Endpoint.LIST || endpoint == Endpoint.COUNT) && getPoolWait() > shedPoolWait) {
+            shed.increment();
+            retryAfter(response, 1000);
+            throw new ServiceUnavailableException("Shedding " + endpoint + " Requests While Connections Are Scarce!");
+        }
+
+        Semaphore semaphore = permits.get(endpoint);
+        if (!semaphore.tryAcquire()) {
+            saturated.increment();
+            retryAfter(response, 1000);
+            throw new ServiceUnavailableException("Too Many Concurrent " + endpoint + " Requests!");
+        }
+        request.setAttribute(PERMIT, semaphore);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Semaphore semaphore = (Semaphore) request.getAttribute(PERMIT);
+        if (semaphore != null && !request.isAsyncStarted()) {
+            request.removeAttribute(PERMIT);
+            semaphore.release();
+        }
+    }
+
+    private String client(HttpServletRequest request) {
+        Principal user = request.getUserPrincipal();
+        if (user != null) {
+            return "user " + user.getName();
+        }
+
+        String key = request.getHeader(clientHeader);
+        return key != null && apiKeys.contains(key) ? "key " + key : "address " + request.getRemoteAddr();
+    }
+
+    private TokenBucket bucket(String client) {
+        TokenBucket bucket = buckets.get(client);
+        if (bucket == null) {
+            long now = System.currentTimeMillis();
+            if (buckets.size() >= MAX_CLIENTS) {
+                buckets.values().removeIf(idle -> idle.isFull(now));
+            }
+            bucket = buckets.computeIfAbsent(client, key -> new TokenBucket(rate, burst, now));
+        }
+        return bucket;
+    }
+
+    private static Endpoint endpoint(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return Endpoint.WRITE;
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String path = pattern == null ? request.getRequestURI() : pattern.toString();
+        if (path.endsWith("/count") || path.endsWith("/years")) {
+            return Endpoint.COUNT;
+        }
+        if (path.endsWith("/ships") || path.endsWith("/scroll")) {
+            return Endpoint.LIST;
+        }
+        return Endpoint.LOOKUP;
+    }
+
+    private static void retryAfter(HttpServletResponse response, long millis) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (millis + 999) / 1000)));
+    }
+
+    public double getPoolWait() {
+        return pool == null ? 0 : pool.getRecentWait();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("clients", buckets.size());
+        statistics.put("poolWait", getPoolWait());
+        Map<String, Object> inFlight = new LinkedHashMap<>();
+        for (Map.Entry<Endpoint, Semaphore> semaphore : permits.entrySet()) {
+            inFlight.put(semaphore.getKey().name().toLowerCase(), limits.get(semaphore.getKey()) - semaphore.getValue().availablePermits());
+        }
+        statistics.put("inFlight", inFlight);
+        statistics.put("rateLimited", (long) rateLimited.count());
+        statistics.put("shed", (long) shed.count());
+        statistics.put("saturated", (long) saturated.count());
+        return statistics;
+    }
+}
@@ -0,0 +1,93 @@
+package com.space.controller;
+
+import com.space.model.Ship;
+import com.space.model.ShipYearCount;
+import com.space.service.ShipFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Same API as {@link ShipController}, served without holding a container thread while the
+ * database works. Active under the {@code async} profile, which disables {@link ShipController}.
+ * Arguments and validators are checked by the shared {@link ShipRequests} before the work is handed
+ * to the endpoint's bulkhead.
+ */
+@RestController
+@Profile("async")
+@RequestMapping ("/rest")
+public class AsyncShipController {
+
+    @Autowired
+    private ShipRequests shipRequests;
+
+    @Autowired
+    private ShipBulkheads bulkheads;
+
+    @GetMapping("/ships")
+    public DeferredResult<List<Ship>> getAllShips(ShipFilter filter, ServletWebRequest request,
+                                                  @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order,
+                                                  @RequestParam(value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
+                                                  @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize){
+        return call(bulkheads.list(), shipRequests.list(filter, request, order, pageNumber, pageSize));
+    }
+
+    @GetMapping("/ships/count")
+    public DeferredResult<Integer> getShipsCount(ShipFilter filter, ServletWebRequest request){
+        return call(bulkheads.count(), shipRequests.count(filter, request));
+    }
+
+    @GetMapping("/ships/scroll")
+    public DeferredResult<ShipScroll> scrollShips(ShipFilter filter, ServletWebRequest request,
+                                                  @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order,
+                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                  @RequestParam(value = "limit", required = false, defaultValue = "50") Integer limit){
+        return call(bulkheads.list(), shipRequests.scroll(filter, request, order, cursor, limit));
+    }
+
+    @GetMapping("/ships/years")
+    public DeferredResult<List<ShipYearCount>> getShipsByYear(ShipFilter filter, ServletWebRequest request){
+        return call(bulkheads.count(), shipRequests.years(filter, request));
+    }
+
+    @GetMapping("/ships/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public DeferredResult<Ship> getShip(@PathVariable("id") String id){
+        return call(bulkheads.lookup(), shipRequests.get(id));
+    }
+
+    @PostMapping("/ships")
+    @ResponseStatus(HttpStatus.OK)
+    public DeferredResult<Ship> createShip(@RequestBody Ship ship){
+        return call(bulkheads.write(), shipRequests.create(ship));
+    }
+
+    @PostMapping("/ships/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public DeferredResult<List<Ship>> createShips(@RequestBody List<Ship> ships){
+        return call(bulkheads.write(), shipRequests.createAll(ships));
+    }
+
+    @PostMapping("/ships/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public DeferredResult<Ship> updateShip(@PathVariable(value = "id") String id, @RequestBody Ship ship){
+        return call(bulkheads.write(), shipRequests.update(id, ship));
+    }
+
+    @DeleteMapping ("/ships/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public DeferredResult<Void> deleteShip(@PathVariable(value = "id") String id){
+        return call(bulkheads.write(), shipRequests.delete(id));
+    }
+
+    // null when the request was answered with 304
+    private static <T> DeferredResult<T> call(Bulkhead bulkhead, Supplier<T> work) {
+        return work == null ? null : bulkhead.call(work);
+    }
+}
@@ -0,0 +1,87 @@
+package com.space.controller;
+
+import com.space.ServiceUnavailableException;
+import com.space.config.QueryCapture;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many requests of one endpoint class may be running or queued for the DB executor at
+ * the same time. Requests over the cap are rejected right away with 503 instead of waiting for a
+ * container thread, and each accepted request gets its own deadline. A request past its deadline is
+ * answered with 503 and its task is cancelled: a queued task never starts and a running one is
+ * interrupted. The permit is held until the task has actually stopped.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final Semaphore permits;
+    private final long timeout;
+    private final Executor executor;
+
+    public Bulkhead(String name, int maxConcurrent, long timeout, Executor executor) {
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrent);
+        this.timeout = timeout;
+        this.executor = executor;
+    }
+
+    public <T> DeferredResult<T> call(Supplier<T> task) {
+        DeferredResult<T> result = new DeferredResult<>(timeout);
+
+        if (!permits.tryAcquire()) {
+            result.setErrorResult(new ServiceUnavailableException("Too Many Requests In " + name + "!"));
+            return result;
+        }
+
+        FutureTask<T> future = new FutureTask<T>(task::get) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    result.setResult(get());
+                } catch (ExecutionException e) {
+                    result.setErrorResult(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    result.setErrorResult(e);
+                }
+            }
+        };
+        result.onTimeout(() -> {
+            future.cancel(true);
+            result.setErrorResult(new ServiceUnavailableException("Request Timed Out In " + name + "!"));
+        });
+
+        try {
+            executor.execute(QueryCapture.propagate(() -> {
+                try {
+                    future.run();
+                } finally {
+                    permits.release();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            result.setErrorResult(new ServiceUnavailableException("Too Many Requests In " + name + "!"));
+        }
+
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+}
@@ -0,0 +1,45 @@
+package com.space.controller;
+
+import com.space.service.FleetVersion;
+import com.space.service.ShipInvalidationBus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * ETag and Last-Modified of list and count responses, both derived from the {@link FleetVersion},
+ * so clients revalidate cheaply and get a 304 while the fleet is unchanged. A node that may have missed
+ * changes of the other nodes answers in full until it is back in sync.
+ */
+@Component
+public class FleetValidators {
+
+    private static final String CACHE_CONTROL = CacheControl.noCache().getHeaderValue();
+
+    @Autowired
+    private FleetVersion fleetVersion;
+
+    @Autowired
+    private ShipInvalidationBus shipInvalidationBus;
+
+    // true when the client's copy is still current; the 304 is then already prepared
+    public boolean checkNotModified(ServletWebRequest request) {
+        // taken before the query runs, so a concurrent change can only make the validator older than the data
+        FleetVersion.Stamp stamp = fleetVersion.current();
+
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+
+        if (!shipInvalidationBus.isCoherent()) {
+            return false;
+        }
+        return request.checkNotModified(stamp.getETag(), stamp.getLastModified());
+    }
+}
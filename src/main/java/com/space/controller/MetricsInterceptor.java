@@ -0,0 +1,63 @@
+package com.space.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-endpoint latency histogram. The start time is kept in a request attribute so that async
+ * requests are measured from the first dispatch to the completion of the last one. Each timer is
+ * built and registered once per method, uri pattern, status and exception, and then looked up.
+ */
+public class MetricsInterceptor implements HandlerInterceptor {
+
+    private static final String START = MetricsInterceptor.class.getName() + ".START";
+
+    private final MeterRegistry registry;
+    private final Map<List<String>, Timer> timers = new ConcurrentHashMap<>();
+
+    public MetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START) == null) {
+            request.setAttribute(START, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Long start = (Long) request.getAttribute(START);
+        if (start == null || request.isAsyncStarted()) {
+            return;
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        timer(request.getMethod(), pattern == null ? "UNKNOWN" : pattern.toString(), String.valueOf(response.getStatus()),
+                ex == null ? "None" : ex.getClass().getSimpleName())
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String method, String uri, String status, String exception) {
+        return timers.computeIfAbsent(Arrays.asList(method, uri, status, exception), key -> Timer.builder("http.server.requests")
+                .description("Ship API request latency")
+                .tag("method", method)
+                .tag("uri", uri)
+                .tag("status", status)
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
@@ -0,0 +1,113 @@
+package com.space.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-endpoint bulkheads of the {@code async} profile. Each bulkhead runs its DB work on its own executor:
+ * virtual threads when the JVM has them, and otherwise a fixed pool with one thread per permit, so a burst
+ * in one endpoint class can never queue the others behind it. The permits of all classes together may not
+ * exceed {@code cosmoport.async.db-threads}, the connection budget of the profile.
+ */
+@Component
+@Profile("async")
+public class ShipBulkheads implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShipBulkheads.class);
+
+    private final List<ExecutorService> executors = new ArrayList<>();
+    private final Bulkhead list;
+    private final Bulkhead count;
+    private final Bulkhead lookup;
+    private final Bulkhead write;
+
+    public ShipBulkheads(@Value("${cosmoport.async.db-threads:20}") int dbThreads,
+                         @Value("${cosmoport.async.virtual-threads:true}") boolean virtualThreads,
+                         @Value("${cosmoport.async.list.concurrency:4}") int listConcurrency,
+                         @Value("${cosmoport.async.list.timeout:10000}") long listTimeout,
+                         @Value("${cosmoport.async.count.concurrency:4}") int countConcurrency,
+                         @Value("${cosmoport.async.count.timeout:10000}") long countTimeout,
+                         @Value("${cosmoport.async.lookup.concurrency:8}") int lookupConcurrency,
+                         @Value("${cosmoport.async.lookup.timeout:2000}") long lookupTimeout,
+                         @Value("${cosmoport.async.write.concurrency:4}") int writeConcurrency,
+                         @Value("${cosmoport.async.write.timeout:5000}") long writeTimeout) {
+        int permits = listConcurrency + countConcurrency + lookupConcurrency + writeConcurrency;
+        if (permits > dbThreads) {
+            throw new IllegalArgumentException("Bulkheads hand out " + permits + " permits, more than the "
+                    + dbThreads + " DB threads");
+        }
+        if (virtualThreads && !hasVirtualThreads()) {
+            LOG.info("Virtual threads are not available, using a pool per bulkhead");
+            virtualThreads = false;
+        }
+
+        this.list = bulkhead("list", listConcurrency, listTimeout, virtualThreads);
+        this.count = bulkhead("count", countConcurrency, countTimeout, virtualThreads);
+        this.lookup = bulkhead("lookup", lookupConcurrency, lookupTimeout, virtualThreads);
+        this.write = bulkhead("write", writeConcurrency, writeTimeout, virtualThreads);
+    }
+
+    public Bulkhead list() {
+        return list;
+    }
+
+    public Bulkhead count() {
+        return count;
+    }
+
+    public Bulkhead lookup() {
+        return lookup;
+    }
+
+    public Bulkhead write() {
+        return write;
+    }
+
+    @Override
+    public void destroy() {
+        executors.forEach(ExecutorService::shutdown);
+    }
+
+    private Bulkhead bulkhead(String name, int concurrency, long timeout, boolean virtualThreads) {
+        ExecutorService executor = virtualThreads ? newVirtualThreadExecutor() : newPool(name, concurrency);
+        executors.add(executor);
+        return new Bulkhead(name, concurrency, timeout, executor);
+    }
+
+    // a thread per permit: a task holding a permit never waits in the queue
+    private static ExecutorService newPool(String name, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ship-db-" + name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static boolean hasVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not available", e);
+        }
+    }
+}
@@ -1,107 +1,83 @@
 package com.space.controller;
 
 import com.space.model.Ship;
-import com.space.model.ShipType;
-import com.space.service.ShipService;
+import com.space.model.ShipYearCount;
+import com.space.service.ShipFilter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
+@Profile("!async")
 @RequestMapping ("/rest")
 public class ShipController {
 
     @Autowired
-    private ShipService shipService;
+    private ShipRequests shipRequests;
 
     @GetMapping("/ships")
-    @ResponseStatus(HttpStatus.OK)
-    public List <Ship> getAllShips(@RequestParam(value = "name", required = false) String name,
-                                  @RequestParam(value = "planet", required = false) String planet,
-                                  @RequestParam(value = "shipType", required = false) ShipType shipType,
-                                  @RequestParam(value = "after", required = false) Long after,
-                                  @RequestParam(value = "before", required = false) Long before,
-                                  @RequestParam(value = "isUsed", required = false) Boolean isUsed,
-                                  @RequestParam(value = "minSpeed", required = false) Double minSpeed,
-                                  @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
-                                  @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
-                                  @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
-                                  @RequestParam(value = "minRating", required = false) Double minRating,
-                                  @RequestParam(value = "maxRating", required = false) Double maxRating,
+    public List <Ship> getAllShips(ShipFilter filter, ServletWebRequest request,
                                   @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order,
                                   @RequestParam(value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
                                   @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize){
-
-        Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(order.getFieldName()));
-
-        return shipService.getAllShips(
-                Specification.where(shipService.filterByName (name)
-                        .and(shipService.filterByPlanet(planet)))
-                        .and(shipService.filterByShipType(shipType))
-                        .and(shipService.filterByProdDate (after, before))
-                        .and(shipService.filterByUsed(isUsed))
-                        .and(shipService.filterBySpeed(minSpeed, maxSpeed))
-                        .and(shipService.filterByCrewSize(minCrewSize, maxCrewSize))
-                        .and(shipService.filterByRating (minRating, maxRating)), pageable)
-                .getContent();
+        return run(shipRequests.list(filter, request, order, pageNumber, pageSize));
     }
 
     @GetMapping("/ships/count")
-    @ResponseStatus(HttpStatus.OK)
-    public Integer getShipsCount(@RequestParam(value = "name", required = false) String name,
-                                 @RequestParam(value = "planet", required = false) String planet,
-                                 @RequestParam(value = "shipType", required = false) ShipType shipType,
-                                 @RequestParam(value = "after", required = false) Long after,
-                                 @RequestParam(value = "before", required = false) Long before,
-                                 @RequestParam(value = "isUsed", required = false) Boolean isUsed,
-                                 @RequestParam(value = "minSpeed", required = false) Double minSpeed,
-                                 @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
-                                 @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
-                                 @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
-                                 @RequestParam(value = "minRating", required = false) Double minRating,
-                                 @RequestParam(value = "maxRating", required = false) Double maxRating){
+    public Integer getShipsCount(ShipFilter filter, ServletWebRequest request){
+        return run(shipRequests.count(filter, request));
+    }
 
-        return shipService.getAllShips(
-                Specification.where(shipService.filterByName(name)
-                        .and(shipService.filterByPlanet(planet)))
-                        .and(shipService.filterByShipType(shipType))
-                        .and(shipService.filterByProdDate (after, before))
-                        .and(shipService.filterByUsed (isUsed))
-                        .and(shipService.filterBySpeed(minSpeed, maxSpeed))
-                        .and(shipService.filterByCrewSize(minCrewSize, maxCrewSize))
-                        .and(shipService.filterByRating(minRating, maxRating)))
-                 .size();
+    @GetMapping("/ships/scroll")
+    public ShipScroll scrollShips(ShipFilter filter, ServletWebRequest request,
+                                  @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order,
+                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                  @RequestParam(value = "limit", required = false, defaultValue = "50") Integer limit){
+        return run(shipRequests.scroll(filter, request, order, cursor, limit));
+    }
+
+    @GetMapping("/ships/years")
+    public List<ShipYearCount> getShipsByYear(ShipFilter filter, ServletWebRequest request){
+        return run(shipRequests.years(filter, request));
     }
 
     @GetMapping("/ships/{id}")
     @ResponseStatus(HttpStatus.OK)
     public Ship getShip( @PathVariable("id") String id){
-        return shipService.getShipById(id);
+        return run(shipRequests.get(id));
     }
 
     @PostMapping("/ships")
     @ResponseStatus(HttpStatus.OK)
     public Ship createShip(@RequestBody Ship ship){
+        return run(shipRequests.create(ship));
+    }
 
-        return shipService.createShip(ship);
+    @PostMapping("/ships/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Ship> createShips(@RequestBody List<Ship> ships){
+        return run(shipRequests.createAll(ships));
     }
 
     @PostMapping("/ships/{id}")
     @ResponseStatus(HttpStatus.OK)
     public Ship updateShip(@PathVariable(value = "id") String id, @RequestBody Ship ship){
-        return shipService.updateShip(id,ship);
+        return run(shipRequests.update(id, ship));
     }
 
     @DeleteMapping ("/ships/{id}")
     @ResponseStatus(HttpStatus.OK)
     public void deleteShip(@PathVariable(value = "id") String id){
-         shipService.deleteShip(id);
+        run(shipRequests.delete(id));
     }
 
+    // null when the request was answered with 304
+    private static <T> T run(Supplier<T> work) {
+        return work == null ? null : work.get();
+    }
 }
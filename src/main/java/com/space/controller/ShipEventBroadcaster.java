@@ -0,0 +1,149 @@
+package com.space.controller;
+
+import com.space.ShipNotFoundException;
+import com.space.model.Ship;
+import com.space.service.ShipEvent;
+import com.space.service.ShipEventBus;
+import com.space.service.ShipEventListener;
+import com.space.service.ShipFilter;
+import com.space.service.ShipInvalidation;
+import com.space.service.ShipInvalidationBus;
+import com.space.service.ShipService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Pushes ship changes to SSE clients. Idle connections are parked in async servlet mode and hold
+ * no thread; a small shared pool drains the per-connection queues only when there is something to send.
+ *
+ * <p>Changes made on other nodes arrive from the {@link ShipInvalidationBus} without the ship, which is
+ * read back here. Their state before the change is unknown, so an update that takes a ship out of a
+ * client's filter is not sent to that client.
+ */
+@Component
+public class ShipEventBroadcaster implements ShipEventListener, InitializingBean, DisposableBean {
+
+    @Autowired
+    private ShipEventBus shipEventBus;
+
+    @Autowired
+    private ShipInvalidationBus shipInvalidationBus;
+
+    @Autowired
+    private ShipService shipService;
+
+    @Value("${cosmoport.events.timeout:1800000}")
+    private long timeout;
+
+    @Value("${cosmoport.events.buffer:256}")
+    private int buffer;
+
+    @Value("${cosmoport.events.threads:2}")
+    private int threads;
+
+    @Value("${cosmoport.events.heartbeat:25000}")
+    private long heartbeat;
+
+    private final Set<ShipEventSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Consumer<ShipInvalidation> invalidations = this::onInvalidation;
+
+    private ExecutorService dispatcher;
+    private ExecutorService remote;
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public void afterPropertiesSet() {
+        dispatcher = Executors.newFixedThreadPool(threads, runnable -> daemon(runnable, "ship-events"));
+        // one thread, so changes of other nodes are sent in the order they were received
+        remote = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "ship-events-remote"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "ship-events-heartbeat"));
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+        shipEventBus.subscribe(this);
+        shipInvalidationBus.subscribe(invalidations);
+    }
+
+    @Override
+    public void destroy() {
+        shipInvalidationBus.unsubscribe(invalidations);
+        shipEventBus.unsubscribe(this);
+        scheduler.shutdownNow();
+        remote.shutdownNow();
+        dispatcher.shutdownNow();
+        subscriptions.forEach(ShipEventSubscription::close);
+        subscriptions.clear();
+    }
+
+    public SseEmitter subscribe(ShipFilter filter) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        ShipEventSubscription subscription = new ShipEventSubscription(emitter, filter, buffer, dispatcher);
+
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(e -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public void onShipEvent(ShipEvent event) {
+        for (ShipEventSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    // received on the transport's thread, which is not held up by reading the ship
+    private void onInvalidation(ShipInvalidation invalidation) {
+        if (!subscriptions.isEmpty()) {
+            remote.execute(() -> onShipEvent(remoteEvent(invalidation)));
+        }
+    }
+
+    private ShipEvent remoteEvent(ShipInvalidation invalidation) {
+        Long id = invalidation.getShipId();
+        if (invalidation.getType() == ShipEvent.Type.DELETED) {
+            return ShipEvent.deleted(id);
+        }
+
+        Ship ship;
+        try {
+            ship = shipService.getShipById(String.valueOf(id));
+        } catch (ShipNotFoundException e) {
+            // deleted since, and the deletion follows
+            return ShipEvent.deleted(id);
+        }
+        return invalidation.getType() == ShipEvent.Type.CREATED ? ShipEvent.created(ship) : ShipEvent.updated(null, ship);
+    }
+
+    private void heartbeat() {
+        for (ShipEventSubscription subscription : subscriptions) {
+            subscription.ping();
+
+            if (subscription.isClosed()) {
+                subscriptions.remove(subscription);
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
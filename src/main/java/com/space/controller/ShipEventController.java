@@ -0,0 +1,22 @@
+package com.space.controller;
+
+import com.space.service.ShipFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/rest")
+public class ShipEventController {
+
+    @Autowired
+    private ShipEventBroadcaster shipEventBroadcaster;
+
+    @GetMapping(value = "/ships/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(ShipFilter filter) {
+        return shipEventBroadcaster.subscribe(filter);
+    }
+}
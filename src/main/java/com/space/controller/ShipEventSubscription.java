@@ -0,0 +1,164 @@
+package com.space.controller;
+
+import com.space.service.ShipEvent;
+import com.space.service.ShipFilter;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * One connected SSE client. Events are coalesced per ship ID while the client is busy, so a slow
+ * consumer costs at most {@code capacity} pending entries; past that the backlog is dropped and the
+ * client is told to reload instead.
+ */
+class ShipEventSubscription {
+
+    static final String RESYNC = "resync";
+
+    private final SseEmitter emitter;
+    private final ShipFilter filter;
+    private final int capacity;
+    private final Executor executor;
+
+    private Map<Long, ShipEvent> pending = new LinkedHashMap<>();
+    private boolean overflowed;
+    private boolean draining;
+    private volatile boolean closed;
+
+    ShipEventSubscription(SseEmitter emitter, ShipFilter filter, int capacity, Executor executor) {
+        this.emitter = emitter;
+        this.filter = filter;
+        this.capacity = capacity;
+        this.executor = executor;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void offer(ShipEvent event) {
+        if (closed || !isRelevant(event)) {
+            return;
+        }
+
+        synchronized (this) {
+            if (!overflowed) {
+                coalesce(event);
+
+                if (pending.size() > capacity) {
+                    pending.clear();
+                    overflowed = true;
+                }
+            }
+
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            close();
+        }
+    }
+
+    void ping() {
+        if (closed) {
+            return;
+        }
+
+        try {
+            synchronized (emitter) {
+                emitter.send(SseEmitter.event().comment("ping"));
+            }
+        } catch (IOException | IllegalStateException e) {
+            close();
+        }
+    }
+
+    void close() {
+        if (!closed) {
+            closed = true;
+            emitter.complete();
+        }
+    }
+
+    private boolean isRelevant(ShipEvent event) {
+        switch (event.getType()) {
+            case DELETED:
+                return true;
+            case UPDATED:
+                return filter.matches(event.getShip()) || filter.matches(event.getPrevious());
+            default:
+                return filter.matches(event.getShip());
+        }
+    }
+
+    private void coalesce(ShipEvent event) {
+        ShipEvent queued = pending.remove(event.getShipId());
+
+        if (queued != null && queued.getType() == ShipEvent.Type.CREATED) {
+            if (event.getType() == ShipEvent.Type.DELETED) {
+                return;
+            }
+            event = ShipEvent.created(event.getShip());
+        }
+
+        pending.put(event.getShipId(), event);
+    }
+
+    private void drain() {
+        while (!closed) {
+            Map<Long, ShipEvent> batch;
+            boolean resync;
+
+            synchronized (this) {
+                if (pending.isEmpty() && !overflowed) {
+                    draining = false;
+                    return;
+                }
+                batch = pending;
+                resync = overflowed;
+                pending = new LinkedHashMap<>();
+                overflowed = false;
+            }
+
+            try {
+                synchronized (emitter) {
+                    if (resync) {
+                        emitter.send(SseEmitter.event().name(RESYNC).data(""));
+                    }
+
+                    for (ShipEvent event : batch.values()) {
+                        send(event);
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+    }
+
+    private void send(ShipEvent event) throws IOException {
+        Object data = event.getType() == ShipEvent.Type.DELETED
+                ? Collections.singletonMap("id", event.getShipId())
+                : event.getShip();
+
+        emitter.send(SseEmitter.event()
+                .id(String.valueOf(event.getTimestamp()))
+                .name(event.getType().name().toLowerCase())
+                .data(data, MediaType.APPLICATION_JSON));
+    }
+}
@@ -1,5 +1,8 @@
 package com.space.controller;
 
+import com.space.service.ShipCursor;
+import org.springframework.data.domain.Sort;
+
 public enum ShipOrder {
     ID("id"), // default
     SPEED("speed"),
@@ -15,4 +18,9 @@ public enum ShipOrder {
     public String getFieldName() {
         return fieldName;
     }
+
+    // ties are broken by id so pages don't depend on the database's row order
+    public Sort getSort() {
+        return ShipCursor.sort(fieldName);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.space.controller;
+
+import com.space.BadRequestException;
+import com.space.model.Ship;
+import com.space.model.ShipYearCount;
+import com.space.service.ShipCursor;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The ship API behind {@link ShipController} and {@link AsyncShipController}, which differ only in the
+ * thread the database work runs on. Each method checks its arguments and the request's validators on
+ * the request thread and returns the database work, or null when the client's copy is current and the
+ * 304 is prepared.
+ */
+@Component
+class ShipRequests {
+
+    static final int MAX_SCROLL_LIMIT = 500;
+    static final int MAX_BATCH_SIZE = 1000;
+
+    @Autowired
+    private ShipService shipService;
+
+    @Value("${cosmoport.admission.max-page-size:100}")
+    private int maxPageSize;
+
+    @Autowired
+    private FleetValidators fleetValidators;
+
+    Supplier<List<Ship>> list(ShipFilter filter, ServletWebRequest request, ShipOrder order, int pageNumber, int pageSize) {
+        if (pageNumber < 0 || pageSize < 1 || pageSize > maxPageSize) {
+            throw new BadRequestException("Page number must not be negative and page size must be within 1.." + maxPageSize);
+        }
+        if (fleetValidators.checkNotModified(request)) {
+            return null;
+        }
+
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, order.getSort());
+        return () -> shipService.getShips(filter, pageable).getContent();
+    }
+
+    Supplier<Integer> count(ShipFilter filter, ServletWebRequest request) {
+        if (fleetValidators.checkNotModified(request)) {
+            return null;
+        }
+
+        return () -> (int) shipService.countShips(filter);
+    }
+
+    Supplier<ShipScroll> scroll(ShipFilter filter, ServletWebRequest request, ShipOrder order, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_SCROLL_LIMIT) {
+            throw new BadRequestException("Scroll limit must be within 1.." + MAX_SCROLL_LIMIT);
+        }
+        ShipCursor after = ShipCursor.decode(cursor);
+        if (fleetValidators.checkNotModified(request)) {
+            return null;
+        }
+
+        return () -> new ShipScroll(shipService.scrollShips(filter, order.getFieldName(), after, limit + 1), limit, order.getFieldName());
+    }
+
+    Supplier<List<ShipYearCount>> years(ShipFilter filter, ServletWebRequest request) {
+        if (fleetValidators.checkNotModified(request)) {
+            return null;
+        }
+
+        return () -> shipService.countShipsByYear(filter);
+    }
+
+    Supplier<Ship> get(String id) {
+        return () -> shipService.getShipById(id);
+    }
+
+    Supplier<Ship> create(Ship ship) {
+        return () -> shipService.createShip(ship);
+    }
+
+    Supplier<List<Ship>> createAll(List<Ship> ships) {
+        if (ships.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("At most " + MAX_BATCH_SIZE + " ships can be created at once");
+        }
+
+        return () -> shipService.createShips(ships);
+    }
+
+    Supplier<Ship> update(String id, Ship ship) {
+        return () -> shipService.updateShip(id, ship);
+    }
+
+    Supplier<Void> delete(String id) {
+        return () -> {
+            shipService.deleteShip(id);
+            return null;
+        };
+    }
+}
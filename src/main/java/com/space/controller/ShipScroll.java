@@ -0,0 +1,31 @@
+package com.space.controller;
+
+import com.space.model.Ship;
+import com.space.service.ShipCursor;
+
+import java.util.List;
+
+/**
+ * A slice of {@code GET /rest/ships/scroll}: the ships and the cursor of the following slice,
+ * {@code null} once the end is reached.
+ */
+public class ShipScroll {
+
+    private final List<Ship> ships;
+    private final String next;
+
+    // ships holds one row more than requested when there is a following slice
+    public ShipScroll(List<Ship> ships, int limit, String orderField) {
+        boolean more = ships.size() > limit;
+        this.ships = more ? ships.subList(0, limit) : ships;
+        this.next = more ? ShipCursor.after(this.ships.get(limit - 1), orderField).encode() : null;
+    }
+
+    public List<Ship> getShips() {
+        return ships;
+    }
+
+    public String getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,56 @@
+package com.space.controller;
+
+import com.space.config.QueryCapture;
+import com.space.service.SlowRequestLog;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Feeds {@link SlowRequestLog}. The capture lives in a request attribute and is attached to whichever
+ * thread is currently working on the request, including the async dispatch.
+ */
+public class SlowRequestInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String CAPTURE = SlowRequestInterceptor.class.getName() + ".CAPTURE";
+    private static final String START = SlowRequestInterceptor.class.getName() + ".START";
+
+    private final SlowRequestLog slowRequestLog;
+
+    public SlowRequestInterceptor(SlowRequestLog slowRequestLog) {
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START) == null) {
+            request.setAttribute(START, System.nanoTime());
+            QueryCapture capture = slowRequestLog.begin();
+            if (capture != null) {
+                request.setAttribute(CAPTURE, capture);
+            }
+        } else {
+            QueryCapture.attach((QueryCapture) request.getAttribute(CAPTURE));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCapture.detach();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Long start = (Long) request.getAttribute(START);
+        if (start == null) {
+            return;
+        }
+
+        String name = handler instanceof HandlerMethod ? ((HandlerMethod) handler).getMethod().getName() : String.valueOf(handler);
+        slowRequestLog.finish((QueryCapture) request.getAttribute(CAPTURE), System.nanoTime() - start,
+                request.getMethod(), request.getRequestURI(), request.getParameterMap(), name, response.getStatus());
+    }
+}
@@ -0,0 +1,40 @@
+package com.space.controller;
+
+/**
+ * Request budget of one client: holds up to {@code burst} tokens and regains {@code rate} per second.
+ */
+class TokenBucket {
+
+    private final double rate;
+    private final double burst;
+
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double rate, double burst, long now) {
+        this.rate = rate;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    // 0 when a token was taken, otherwise the ms until the next one is available
+    synchronized long take(long now) {
+        refill(now);
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) * 1000 / rate);
+    }
+
+    synchronized boolean isFull(long now) {
+        refill(now);
+        return tokens >= burst;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) * rate / 1000);
+        refilledAt = now;
+    }
+}
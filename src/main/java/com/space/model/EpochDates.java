@@ -0,0 +1,30 @@
+package com.space.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Conversions between the epoch milliseconds of the REST API and production dates. A date stands
+ * for its midnight in the server time zone, which is what the {@code date} column read back as a
+ * {@link java.util.Date} used to be.
+ */
+public final class EpochDates {
+
+    private EpochDates() {
+    }
+
+    public static LocalDate toLocalDate(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    public static long toMillis(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // the first date whose midnight is not before the instant
+    public static LocalDate ceil(long millis) {
+        LocalDate date = toLocalDate(millis);
+        return toMillis(date) < millis ? date.plusDays(1) : date;
+    }
+}
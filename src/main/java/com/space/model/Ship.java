@@ -1,9 +1,10 @@
 package com.space.model;
 
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.lang.Nullable;
 
 import javax.persistence.*;
-import java.util.Date;
+import java.time.LocalDate;
 
 @Entity
 @Table(name = "ship")
@@ -11,7 +12,8 @@ public class Ship {
 
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "ship")
+    @GenericGenerator(name = "ship", strategy = "com.space.repository.ShipIdGenerator")
     private Long id ; // ID корабля
 
     @Column(name = "name", length = 50)
@@ -25,7 +27,10 @@ public class Ship {
     private ShipType shipType ; // Тип корабля
 
     @Column(name = "prodDate")
-    private Date prodDate ; // Дата выпуска.     Диапазон значений года 2800..3019 включительно
+    private LocalDate prodDate ; // Дата выпуска.     Диапазон значений года 2800..3019 включительно
+
+    @Column(name = "prodYear")
+    private Integer prodYear ; // year of prodDate, kept in step by ShipService for the indexed year filters
 
     @Column(name = "isUsed")
     private Boolean isUsed ; // Использованный / новый
@@ -71,14 +76,22 @@ public class Ship {
         this.shipType = shipType;
     }
 
-    public Date getProdDate() {
+    public LocalDate getProdDate() {
         return prodDate;
     }
 
-    public void setProdDate(Date prodDate) {
+    public void setProdDate(LocalDate prodDate) {
         this.prodDate = prodDate;
     }
 
+    public Integer getProdYear() {
+        return prodYear;
+    }
+
+    public void setProdYear(Integer prodYear) {
+        this.prodYear = prodYear;
+    }
+
     public Boolean getUsed() {
         return isUsed;
     }
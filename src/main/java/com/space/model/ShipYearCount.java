@@ -0,0 +1,28 @@
+package com.space.model;
+
+/**
+ * Number of ships produced in one year, a row of {@code GET /rest/ships/years}.
+ */
+public class ShipYearCount {
+
+    private final Integer year;
+    private final long count;
+
+    public ShipYearCount(Integer year, Long count) {
+        this.year = year;
+        this.count = count;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return year + "=" + count;
+    }
+}
@@ -0,0 +1,600 @@
+package com.space.repository;
+
+import com.space.config.QueryCapture;
+import com.space.model.Ship;
+import com.space.model.ShipYearCount;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * {@link ShipRepository} over several databases. Ships live on the shard their id maps to, in runs of
+ * {@code rangeSize} consecutive ids dealt out round robin, and new ones get fleet-wide ids from a
+ * {@link ShipIdAllocator}. Lookups and writes by id go to that one shard; filtered lists and counts
+ * query every shard in parallel and merge the sorted partial results, so a page of {@code size} at
+ * {@code offset} costs each shard its first {@code offset + size} rows.
+ */
+public class ShardedShipRepository implements ShipRepository, DisposableBean {
+
+    private static final int MOVE_BATCH = 1_000;
+
+    private final List<ShipShard> shards;
+    private final ShipIdAllocator ids;
+    private final int rangeSize;
+    private final ExecutorService executor;
+
+    public ShardedShipRepository(List<ShipShard> shards, ShipIdAllocator ids, int rangeSize, int threads) {
+        Assert.notEmpty(shards, "At least one shard is required");
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.ids = ids;
+        this.rangeSize = rangeSize;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ship-shards-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<ShipShard> getShards() {
+        return shards;
+    }
+
+    public ShipIdAllocator getIds() {
+        return ids;
+    }
+
+    public ShipShard shardOf(long id) {
+        return shards.get((int) Math.floorMod(Math.floorDiv(id - 1, rangeSize), (long) shards.size()));
+    }
+
+    // moves every ship that sits on another shard than its id maps to, e.g. after adding a shard;
+    // the target is cleared before the copy, so an interrupted run can simply be repeated
+    public long rebalance() {
+        long moved = 0;
+        for (ShipShard source : shards) {
+            long afterId = 0;
+            List<Ship> ships;
+            while (!(ships = source.read(afterId, MOVE_BATCH)).isEmpty()) {
+                afterId = ships.get(ships.size() - 1).getId();
+
+                for (Map.Entry<ShipShard, List<Ship>> misplaced : byShard(ships).entrySet()) {
+                    if (misplaced.getKey() == source) {
+                        continue;
+                    }
+                    List<Long> movedIds = idsOf(misplaced.getValue());
+                    misplaced.getKey().delete(movedIds);
+                    misplaced.getKey().insert(misplaced.getValue());
+                    source.delete(movedIds);
+                    moved += movedIds.size();
+                }
+            }
+        }
+        return moved;
+    }
+
+    public long maxId() {
+        long maxId = 0;
+        for (Long shardMax : scatter(shard -> shard.maxId())) {
+            maxId = Math.max(maxId, shardMax);
+        }
+        return maxId;
+    }
+
+    @Override
+    public Page<Ship> findAll(Specification<Ship> specification, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(findAll(specification, pageable.getSort()));
+        }
+
+        return gatherPage(pageable, (repository, head) -> repository.findAll(specification, head));
+    }
+
+    // the same gather as for a Specification; the order of the query is the order of the pageable
+    @Override
+    public Page<Ship> findAll(ShipQuery query, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(merge(scatterRepositories(repository -> repository.findAll(query, pageable).getContent()),
+                    pageable.getSort(), 0, Integer.MAX_VALUE));
+        }
+
+        return gatherPage(pageable, (repository, head) -> repository.findAll(query, head));
+    }
+
+    @Override
+    public List<Ship> findContent(ShipQuery query, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return merge(scatterRepositories(repository -> repository.findContent(query, pageable)),
+                    pageable.getSort(), 0, Integer.MAX_VALUE);
+        }
+
+        long rows = pageable.getOffset() + pageable.getPageSize();
+        Pageable head = PageRequest.of(0, (int) Math.min(rows, Integer.MAX_VALUE), pageable.getSort());
+        return merge(scatterRepositories(repository -> repository.findContent(query, head)),
+                pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+    }
+
+    // every shard returns the first offset + size rows along with its total
+    private Page<Ship> gatherPage(Pageable pageable, BiFunction<ShipRepository, Pageable, Page<Ship>> query) {
+        long rows = pageable.getOffset() + pageable.getPageSize();
+        Pageable head = PageRequest.of(0, (int) Math.min(rows, Integer.MAX_VALUE), pageable.getSort());
+        List<Page<Ship>> pages = scatterRepositories(repository -> query.apply(repository, head));
+
+        List<List<Ship>> slices = new ArrayList<>(pages.size());
+        long total = 0;
+        for (Page<Ship> page : pages) {
+            slices.add(page.getContent());
+            total += page.getTotalElements();
+        }
+
+        return new PageImpl<>(merge(slices, pageable.getSort(), pageable.getOffset(), pageable.getPageSize()), pageable, total);
+    }
+
+    @Override
+    public long count(ShipQuery query) {
+        long count = 0;
+        for (Long shardCount : scatterRepositories(repository -> repository.count(query))) {
+            count += shardCount;
+        }
+        return count;
+    }
+
+    @Override
+    public List<Ship> findAll(Specification<Ship> specification, Sort sort, int limit) {
+        return merge(scatterRepositories(repository -> repository.findAll(specification, sort, limit)), sort, 0, limit);
+    }
+
+    @Override
+    public List<Ship> findAll(Specification<Ship> specification, Sort sort) {
+        return merge(scatterRepositories(repository -> repository.findAll(specification, sort)), sort, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Ship> findAll(Specification<Ship> specification) {
+        return concat(scatterRepositories(repository -> repository.findAll(specification)));
+    }
+
+    @Override
+    public Optional<Ship> findOne(Specification<Ship> specification) {
+        Ship found = null;
+        for (Optional<Ship> ship : scatterRepositories(repository -> repository.findOne(specification))) {
+            if (ship.isPresent()) {
+                if (found != null) {
+                    throw new IncorrectResultSizeDataAccessException(1);
+                }
+                found = ship.get();
+            }
+        }
+        return Optional.ofNullable(found);
+    }
+
+    @Override
+    public long count(Specification<Ship> specification) {
+        long count = 0;
+        for (Long shardCount : scatterRepositories(repository -> repository.count(specification))) {
+            count += shardCount;
+        }
+        return count;
+    }
+
+    @Override
+    public List<ShipYearCount> countByProdYear(Specification<Ship> specification) {
+        Map<Integer, Long> counts = new TreeMap<>(Comparator.nullsFirst(Comparator.<Integer>naturalOrder()));
+        for (List<ShipYearCount> years : scatterRepositories(repository -> repository.countByProdYear(specification))) {
+            for (ShipYearCount year : years) {
+                counts.merge(year.getYear(), year.getCount(), Long::sum);
+            }
+        }
+
+        List<ShipYearCount> years = new ArrayList<>(counts.size());
+        for (Map.Entry<Integer, Long> count : counts.entrySet()) {
+            years.add(new ShipYearCount(count.getKey(), count.getValue()));
+        }
+        return years;
+    }
+
+    @Override
+    public List<Ship> findAll() {
+        return findAll((Specification<Ship>) null);
+    }
+
+    @Override
+    public List<Ship> findAll(Sort sort) {
+        return findAll((Specification<Ship>) null, sort);
+    }
+
+    @Override
+    public Page<Ship> findAll(Pageable pageable) {
+        return findAll((Specification<Ship>) null, pageable);
+    }
+
+    @Override
+    public long count() {
+        return count((Specification<Ship>) null);
+    }
+
+    @Override
+    public Optional<Ship> findById(Long id) {
+        Assert.notNull(id, "The given id must not be null!");
+        return shardOf(id).getRepository().findById(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        Assert.notNull(id, "The given id must not be null!");
+        return shardOf(id).getRepository().existsById(id);
+    }
+
+    @Override
+    public Ship getOne(Long id) {
+        return shardOf(id).getRepository().getOne(id);
+    }
+
+    @Override
+    public List<Ship> findAllById(Iterable<Long> ids) {
+        Map<ShipShard, List<Long>> byShard = new LinkedHashMap<>();
+        for (Long id : ids) {
+            byShard.computeIfAbsent(shardOf(id), shard -> new ArrayList<>()).add(id);
+        }
+
+        List<Ship> ships = new ArrayList<>();
+        for (Map.Entry<ShipShard, List<Long>> shardIds : byShard.entrySet()) {
+            ships.addAll(shardIds.getKey().getRepository().findAllById(shardIds.getValue()));
+        }
+        return ships;
+    }
+
+    // a ship without an id is inserted under a new one; a ship with an id must still exist, so an update
+    // that lost a race with a delete fails instead of bringing the ship back under another id
+    @Override
+    public <S extends Ship> S saveAndFlush(S ship) {
+        if (ship.getId() == null) {
+            ship.setId(ids.nextId());
+            shardOf(ship.getId()).insert(Collections.singletonList(ship));
+            return ship;
+        }
+
+        ShipShard shard = shardOf(ship.getId());
+        return shard.inTransaction(() -> {
+            if (!shard.getRepository().existsById(ship.getId())) {
+                throw notFound(ship);
+            }
+            return shard.getRepository().saveAndFlush(ship);
+        });
+    }
+
+    @Override
+    public <S extends Ship> S save(S ship) {
+        return saveAndFlush(ship);
+    }
+
+    // new ships are inserted with one batch per shard
+    @Override
+    public <S extends Ship> List<S> saveAll(Iterable<S> ships) {
+        List<S> saved = new ArrayList<>();
+        List<Ship> inserted = new ArrayList<>();
+        for (S ship : ships) {
+            if (ship.getId() != null) {
+                saved.add(saveAndFlush(ship));
+            } else {
+                ship.setId(ids.nextId());
+                inserted.add(ship);
+                saved.add(ship);
+            }
+        }
+
+        for (Map.Entry<ShipShard, List<Ship>> shardShips : byShard(inserted).entrySet()) {
+            shardShips.getKey().insert(shardShips.getValue());
+        }
+        return saved;
+    }
+
+    @Override
+    public void flush() {
+        // every write has been committed on its shard already
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        Assert.notNull(id, "The given id must not be null!");
+        ShipShard shard = shardOf(id);
+        shard.inTransaction(() -> {
+            shard.getRepository().deleteById(id);
+            return null;
+        });
+    }
+
+    @Override
+    public int deleteShipById(Long id) {
+        Assert.notNull(id, "The given id must not be null!");
+        ShipShard shard = shardOf(id);
+        return shard.inTransaction(() -> shard.getRepository().deleteShipById(id));
+    }
+
+    @Override
+    public void delete(Ship ship) {
+        if (ship.getId() == null || !existsById(ship.getId())) {
+            throw notFound(ship);
+        }
+        deleteById(ship.getId());
+    }
+
+    private static EmptyResultDataAccessException notFound(Ship ship) {
+        return new EmptyResultDataAccessException(String.format("No %s entity with id %s exists!", Ship.class, ship.getId()), 1);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Ship> ships) {
+        for (Ship ship : ships) {
+            delete(ship);
+        }
+    }
+
+    @Override
+    public void deleteInBatch(Iterable<Ship> ships) {
+        List<Ship> all = new ArrayList<>();
+        ships.forEach(all::add);
+        for (Map.Entry<ShipShard, List<Ship>> shardShips : byShard(all).entrySet()) {
+            ShipShard shard = shardShips.getKey();
+            shard.inTransaction(() -> {
+                shard.getRepository().deleteInBatch(shardShips.getValue());
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        scatter(shard -> shard.inTransaction(() -> {
+            shard.getRepository().deleteAll();
+            return null;
+        }));
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        scatter(shard -> shard.inTransaction(() -> {
+            shard.getRepository().deleteAllInBatch();
+            return null;
+        }));
+    }
+
+    // queries by example are scattered and merged like Specifications; each shard builds the predicate
+    @Override
+    public <S extends Ship> Optional<S> findOne(Example<S> example) {
+        S found = null;
+        for (Optional<S> ship : scatterRepositories(repository -> repository.findOne(example))) {
+            if (ship.isPresent()) {
+                if (found != null) {
+                    throw new IncorrectResultSizeDataAccessException(1);
+                }
+                found = ship.get();
+            }
+        }
+        return Optional.ofNullable(found);
+    }
+
+    @Override
+    public <S extends Ship> List<S> findAll(Example<S> example) {
+        return concat(scatterRepositories(repository -> repository.findAll(example)));
+    }
+
+    @Override
+    public <S extends Ship> List<S> findAll(Example<S> example, Sort sort) {
+        return narrow(merge(scatterRepositories(repository -> widen(repository.findAll(example, sort))),
+                sort, 0, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public <S extends Ship> Page<S> findAll(Example<S> example, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(findAll(example, pageable.getSort()));
+        }
+
+        Page<Ship> page = gatherPage(pageable, (repository, head) -> repository.findAll(example, head).map(Ship.class::cast));
+        return new PageImpl<>(narrow(page.getContent()), pageable, page.getTotalElements());
+    }
+
+    @Override
+    public <S extends Ship> long count(Example<S> example) {
+        long count = 0;
+        for (Long shardCount : scatterRepositories(repository -> repository.count(example))) {
+            count += shardCount;
+        }
+        return count;
+    }
+
+    @Override
+    public <S extends Ship> boolean exists(Example<S> example) {
+        return scatterRepositories(repository -> repository.exists(example)).contains(true);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        for (ShipShard shard : shards) {
+            shard.close();
+        }
+    }
+
+    private <T> List<T> scatterRepositories(Function<ShipRepository, T> query) {
+        return scatter(shard -> query.apply(shard.getRepository()));
+    }
+
+    // runs the query on every shard at once and returns the results in shard order
+    private <T> List<T> scatter(Function<ShipShard, T> query) {
+        if (shards.size() == 1) {
+            return Collections.singletonList(query.apply(shards.get(0)));
+        }
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (ShipShard shard : shards) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            executor.execute(QueryCapture.propagate(() -> {
+                try {
+                    future.complete(query.apply(shard));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }));
+            futures.add(future);
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    // k-way merge of slices sorted by the same order, skipping the first rows of the merged result
+    static List<Ship> merge(List<List<Ship>> slices, Sort sort, long skip, int limit) {
+        Comparator<Ship> order = comparator(sort);
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, slices.size()), (a, b) -> order.compare(a.ship, b.ship));
+        for (List<Ship> slice : slices) {
+            Iterator<Ship> rest = slice.iterator();
+            if (rest.hasNext()) {
+                heads.add(new Head(rest.next(), rest));
+            }
+        }
+
+        List<Ship> merged = new ArrayList<>();
+        long skipped = 0;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Head head = heads.poll();
+            if (skipped < skip) {
+                skipped++;
+            } else {
+                merged.add(head.ship);
+            }
+            if (head.rest.hasNext()) {
+                heads.add(new Head(head.rest.next(), head.rest));
+            }
+        }
+        return merged;
+    }
+
+    // the order of the database: nulls first when ascending, last when descending, ties by id
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Comparator<Ship> comparator(Sort sort) {
+        Comparator<Ship> comparator = null;
+        for (Sort.Order order : sort) {
+            String property = order.getProperty();
+            Comparator<Ship> next = Comparator.<Ship, Comparable>comparing(ship -> property(ship, property),
+                    Comparator.nullsFirst(Comparator.<Comparable>naturalOrder()));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+
+        Comparator<Ship> byId = Comparator.comparing(Ship::getId, Comparator.nullsFirst(Comparator.<Long>naturalOrder()));
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    private static Comparable<?> property(Ship ship, String property) {
+        switch (property) {
+            case "id":
+                return ship.getId();
+            case "name":
+                return ship.getName();
+            case "planet":
+                return ship.getPlanet();
+            case "shipType":
+                return ship.getShipType();
+            case "prodDate":
+                return ship.getProdDate();
+            case "prodYear":
+                return ship.getProdYear();
+            case "isUsed":
+                return ship.getUsed();
+            case "speed":
+                return ship.getSpeed();
+            case "crewSize":
+                return ship.getCrewSize();
+            case "rating":
+                return ship.getRating();
+            default:
+                throw new IllegalArgumentException("Ships cannot be sorted by " + property);
+        }
+    }
+
+    private Map<ShipShard, List<Ship>> byShard(List<Ship> ships) {
+        Map<ShipShard, List<Ship>> byShard = new LinkedHashMap<>();
+        for (Ship ship : ships) {
+            byShard.computeIfAbsent(shardOf(ship.getId()), shard -> new ArrayList<>()).add(ship);
+        }
+        return byShard;
+    }
+
+    private static List<Long> idsOf(List<Ship> ships) {
+        List<Long> ids = new ArrayList<>(ships.size());
+        for (Ship ship : ships) {
+            ids.add(ship.getId());
+        }
+        return ids;
+    }
+
+    private static <T> List<T> concat(List<List<T>> lists) {
+        List<T> all = new ArrayList<>();
+        for (List<T> list : lists) {
+            all.addAll(list);
+        }
+        return all;
+    }
+
+    private static List<Ship> widen(List<? extends Ship> ships) {
+        return Collections.unmodifiableList(ships);
+    }
+
+    // the merged ships are the ones the shards returned for the probe's type
+    @SuppressWarnings("unchecked")
+    private static <S extends Ship> List<S> narrow(List<Ship> ships) {
+        return (List<S>) ships;
+    }
+
+    private static class Head {
+
+        private final Ship ship;
+        private final Iterator<Ship> rest;
+
+        Head(Ship ship, Iterator<Ship> rest) {
+            this.ship = ship;
+            this.rest = rest;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.space.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Fleet-wide ship ids for a sharded fleet, handed out from blocks reserved in the {@code ship_sequence}
+ * table. Each node locks the sequence row once per block instead of once per ship, so nodes do not
+ * contend on it and ids stay unique across all shards. {@code next_val} is the last id reserved so far,
+ * as Hibernate keeps it for {@link ShipIdGenerator}; a missing row starts above the largest id the shards
+ * already hold.
+ */
+public class ShipIdAllocator {
+
+    static final String SEQUENCE = "ship";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+    private final LongSupplier firstId;
+
+    private long next;
+    private long limit;
+
+    public ShipIdAllocator(DataSource dataSource, int blockSize, LongSupplier firstId) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.blockSize = blockSize;
+        this.firstId = firstId;
+    }
+
+    public synchronized long nextId() {
+        if (next >= limit) {
+            next = reserve();
+            limit = next + blockSize;
+        }
+        return next++;
+    }
+
+    // forgets the rest of the current block, e.g. after the sequence was reset
+    public synchronized void discard() {
+        next = 0;
+        limit = 0;
+    }
+
+    private long reserve() {
+        while (true) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    List<Long> values = jdbcTemplate.queryForList(
+                            "SELECT next_val FROM ship_sequence WHERE sequence_name = ? FOR UPDATE", Long.class, SEQUENCE);
+                    if (values.isEmpty()) {
+                        long first = firstId.getAsLong();
+                        jdbcTemplate.update("INSERT INTO ship_sequence (sequence_name, next_val) VALUES (?, ?)", SEQUENCE, first + blockSize - 1);
+                        return first;
+                    }
+
+                    long first = values.get(0) + 1;
+                    jdbcTemplate.update("UPDATE ship_sequence SET next_val = ? WHERE sequence_name = ?", first + blockSize - 1, SEQUENCE);
+                    return first;
+                });
+            } catch (DuplicateKeyException e) {
+                // another node created the row first, take a block from it
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.space.repository;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Ship ids for JPA inserts, drawn from the {@code ship_sequence} table in blocks of
+ * {@code cosmoport.ids.block-size}. The row is shared with {@link ShipIdAllocator} of sharded fleets:
+ * {@code next_val} is the last id any node has reserved. Unlike an IDENTITY column the
+ * id is known before the INSERT runs, so Hibernate can batch inserts instead of executing each one at
+ * once to read the generated key.
+ */
+public class ShipIdGenerator extends TableGenerator {
+
+    public static final String BLOCK_SIZE = "cosmoport.ids.block-size";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        String blockSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSetting(BLOCK_SIZE, StandardConverters.STRING, "50");
+
+        params.setProperty(TABLE_PARAM, "ship_sequence");
+        params.setProperty(SEGMENT_COLUMN_PARAM, "sequence_name");
+        params.setProperty(SEGMENT_VALUE_PARAM, ShipIdAllocator.SEQUENCE);
+        params.setProperty(VALUE_COLUMN_PARAM, "next_val");
+        params.setProperty(INCREMENT_PARAM, blockSize);
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -0,0 +1,46 @@
+package com.space.repository;
+
+import javax.persistence.Query;
+import java.util.Map;
+
+/**
+ * A ship select and count in JPQL with named parameters. Queries of the same filter shape and order
+ * share the very same text, so Hibernate takes the parsed plan from its query plan cache and only the
+ * bind values differ between requests.
+ */
+public class ShipQuery {
+
+    private final String select;
+    private final String count;
+    private final Map<String, Object> parameters;
+
+    public ShipQuery(String select, String count, Map<String, Object> parameters) {
+        this.select = select;
+        this.count = count;
+        this.parameters = parameters;
+    }
+
+    public String getSelect() {
+        return select;
+    }
+
+    public String getCount() {
+        return count;
+    }
+
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    <Q extends Query> Q bind(Q query) {
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            query.setParameter(parameter.getKey(), parameter.getValue());
+        }
+        return query;
+    }
+
+    @Override
+    public String toString() {
+        return select + " " + parameters;
+    }
+}
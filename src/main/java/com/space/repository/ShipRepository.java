@@ -3,8 +3,15 @@ package com.space.repository;
 import com.space.model.Ship;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ShipRepository extends JpaRepository<Ship, Long> , JpaSpecificationExecutor<Ship> {
-
+public interface ShipRepository extends JpaRepository<Ship, Long> , JpaSpecificationExecutor<Ship>, ShipRepositoryCustom {
 
+    // a single DELETE, where deleteById loads the ship first; 0 when there is no ship with the id.
+    // Needs a read-write transaction of the caller, as the repository's own ones are read-only
+    @Modifying
+    @Query("delete from Ship s where s.id = :id")
+    int deleteShipById(@Param("id") Long id);
 }
@@ -0,0 +1,27 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipYearCount;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ShipRepositoryCustom {
+
+    // a page of a precompiled query; its order is part of the query, the sort of the pageable is not applied
+    Page<Ship> findAll(ShipQuery query, Pageable pageable);
+
+    // the rows of such a page alone, for callers that count them separately
+    List<Ship> findContent(ShipQuery query, Pageable pageable);
+
+    long count(ShipQuery query);
+
+    // the first ships in sort order, without the count query a Pageable lookup would add
+    List<Ship> findAll(Specification<Ship> specification, Sort sort, int limit);
+
+    // ships per production year in year order, grouped on the indexed prodYear column
+    List<ShipYearCount> countByProdYear(Specification<Ship> specification);
+}
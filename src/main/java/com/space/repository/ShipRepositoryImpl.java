@@ -0,0 +1,89 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipYearCount;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+public class ShipRepositoryImpl implements ShipRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ShipRepositoryImpl() {
+    }
+
+    // for repositories created outside the container, such as those of ShipShard
+    public ShipRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Page<Ship> findAll(ShipQuery query, Pageable pageable) {
+        return PageableExecutionUtils.getPage(findContent(query, pageable), pageable, () -> count(query));
+    }
+
+    @Override
+    public List<Ship> findContent(ShipQuery query, Pageable pageable) {
+        TypedQuery<Ship> select = query.bind(entityManager.createQuery(query.getSelect(), Ship.class));
+        if (pageable.isPaged()) {
+            select.setFirstResult((int) pageable.getOffset());
+            select.setMaxResults(pageable.getPageSize());
+        }
+        return select.getResultList();
+    }
+
+    @Override
+    public long count(ShipQuery query) {
+        return query.bind(entityManager.createQuery(query.getCount(), Long.class)).getSingleResult();
+    }
+
+    @Override
+    public List<Ship> findAll(Specification<Ship> specification, Sort sort, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = criteriaBuilder.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<ShipYearCount> countByProdYear(Specification<Ship> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ShipYearCount> query = criteriaBuilder.createQuery(ShipYearCount.class);
+        Root<Ship> root = query.from(Ship.class);
+        Path<Integer> year = root.get("prodYear");
+
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(criteriaBuilder.construct(ShipYearCount.class, year, criteriaBuilder.count(root)))
+                .groupBy(year)
+                .orderBy(criteriaBuilder.asc(year));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+}
@@ -0,0 +1,130 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * One database of a sharded fleet: a {@link ShipRepository} of its own for the JPA side, plus plain
+ * JDBC for inserts under ids allocated elsewhere and for moving rows between shards.
+ */
+public class ShipShard {
+
+    private static final String COLUMNS = "id, name, planet, shipType, prodDate, prodYear, isUsed, speed, crewSize, rating";
+    private static final RowMapper<Ship> SHIP = (rs, rowNum) -> {
+        Ship ship = new Ship();
+        ship.setId(rs.getLong("id"));
+        ship.setName(rs.getString("name"));
+        ship.setPlanet(rs.getString("planet"));
+        String shipType = rs.getString("shipType");
+        ship.setShipType(shipType == null ? null : ShipType.valueOf(shipType));
+        Date prodDate = rs.getDate("prodDate");
+        ship.setProdDate(prodDate == null ? null : prodDate.toLocalDate());
+        ship.setProdYear(rs.getObject("prodYear", Integer.class));
+        ship.setUsed(rs.getObject("isUsed", Boolean.class));
+        ship.setSpeed(rs.getObject("speed", Double.class));
+        ship.setCrewSize(rs.getObject("crewSize", Integer.class));
+        ship.setRating(rs.getObject("rating", Double.class));
+        return ship;
+    };
+
+    private final int index;
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean ownsEntityManagerFactory;
+    private final ShipRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShipShard(int index, DataSource dataSource, EntityManagerFactory entityManagerFactory, boolean ownsEntityManagerFactory) {
+        this.index = index;
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.ownsEntityManagerFactory = ownsEntityManagerFactory;
+
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+        this.repository = new JpaRepositoryFactory(entityManager)
+                .getRepository(ShipRepository.class, RepositoryFragments.just(new ShipRepositoryImpl(entityManager)));
+        this.transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public ShipRepository getRepository() {
+        return repository;
+    }
+
+    // repositories built outside the container have no transactional proxy, so writes go through here
+    public <T> T inTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    public void insert(List<Ship> ships) {
+        jdbcTemplate.batchUpdate("INSERT INTO ship (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", ships, ships.size(),
+                (insert, ship) -> {
+                    insert.setLong(1, ship.getId());
+                    insert.setString(2, ship.getName());
+                    insert.setString(3, ship.getPlanet());
+                    insert.setString(4, ship.getShipType() == null ? null : ship.getShipType().name());
+                    insert.setDate(5, ship.getProdDate() == null ? null : Date.valueOf(ship.getProdDate()));
+                    insert.setObject(6, ship.getProdYear(), Types.INTEGER);
+                    insert.setObject(7, ship.getUsed(), Types.BOOLEAN);
+                    insert.setObject(8, ship.getSpeed(), Types.DOUBLE);
+                    insert.setObject(9, ship.getCrewSize(), Types.INTEGER);
+                    insert.setObject(10, ship.getRating(), Types.DOUBLE);
+                });
+    }
+
+    // ships by id, starting after the given one
+    public List<Ship> read(long afterId, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM ship WHERE id > ? ORDER BY id LIMIT ?", SHIP, afterId, limit);
+    }
+
+    public void delete(List<Long> ids) {
+        jdbcTemplate.batchUpdate("DELETE FROM ship WHERE id = ?", ids, ids.size(), (delete, id) -> delete.setLong(1, id));
+    }
+
+    public long maxId() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM ship", Long.class);
+        return maxId == null ? 0 : maxId;
+    }
+
+    // a shard that owns its persistence unit also owns its data source, and its pool if it has one
+    public void close() {
+        if (ownsEntityManagerFactory) {
+            entityManagerFactory.close();
+            try {
+                if (dataSource.isWrapperFor(Closeable.class)) {
+                    dataSource.unwrap(Closeable.class).close();
+                }
+            } catch (SQLException | IOException e) {
+                throw new IllegalStateException("Could not close the data source of " + this, e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "shard" + index;
+    }
+}
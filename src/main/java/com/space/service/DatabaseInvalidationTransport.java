@@ -0,0 +1,139 @@
+package com.space.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Invalidations exchanged through the {@code ship_invalidation} table of the shared database, so no
+ * infrastructure beyond it is needed. Sends are inserted off the writing thread and every node polls
+ * for the rows of the others each {@code pollInterval} ms; rows older than {@code retention} ms are pruned.
+ *
+ * <p>Ids are handed out before the inserts commit, so a lower id may become visible after a higher one.
+ * The poll cursor therefore only moves over contiguous ids, and a gap counts as a lost id once it has
+ * stayed open for {@link #GAP_TIMEOUT} ms. Until then the node does not count as synced, see
+ * {@link ShipInvalidationBus}.
+ */
+public class DatabaseInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DatabaseInvalidationTransport.class);
+
+    static final long GAP_TIMEOUT = 10_000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final long pollInterval;
+    private final long retention;
+
+    private String node;
+    private Consumer<ShipInvalidation> receiver;
+    private ScheduledExecutorService scheduler;
+
+    // every id up to the cursor is handled; ids read above it, with the time they were first read
+    private long cursor;
+    private final TreeMap<Long, Long> ahead = new TreeMap<>();
+    private volatile long syncedAt;
+    private long prunedAt;
+
+    public DatabaseInvalidationTransport(DataSource dataSource, long pollInterval, long retention) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+    }
+
+    @Override
+    public void start(String node, Consumer<ShipInvalidation> receiver) {
+        this.node = node;
+        this.receiver = receiver;
+        new ResourceDatabasePopulator(new ClassPathResource("db/ship-invalidation.sql")).execute(dataSource);
+
+        // changes from before the start are in the database already
+        syncedAt = System.currentTimeMillis();
+        cursor = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM ship_invalidation", Long.class);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ship-invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::pollQuietly, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void send(ShipInvalidation invalidation) {
+        scheduler.execute(() -> {
+            try {
+                jdbcTemplate.update("INSERT INTO ship_invalidation (node, type, ship_id, created) VALUES (?, ?, ?, ?)",
+                        invalidation.getNode(), invalidation.getType().name(), invalidation.getShipId(), invalidation.getTimestamp());
+            } catch (RuntimeException e) {
+                LOG.warn("Sending {} failed", invalidation, e);
+            }
+        });
+    }
+
+    @Override
+    public long getSyncedAt() {
+        return syncedAt;
+    }
+
+    @Override
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(pollInterval + 5_000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            LOG.warn("Polling ship invalidations failed", e);
+        }
+    }
+
+    public synchronized void poll() {
+        long startedAt = System.currentTimeMillis();
+        jdbcTemplate.query("SELECT id, node, type, ship_id, created FROM ship_invalidation WHERE id > ? ORDER BY id", row -> {
+            long id = row.getLong("id");
+            if (ahead.putIfAbsent(id, startedAt) == null && !node.equals(row.getString("node"))) {
+                Long shipId = row.getObject("ship_id") == null ? null : row.getLong("ship_id");
+                receiver.accept(new ShipInvalidation(row.getString("node"), ShipEvent.Type.valueOf(row.getString("type")),
+                        shipId, row.getLong("created")));
+            }
+        }, cursor);
+
+        while (!ahead.isEmpty()) {
+            Map.Entry<Long, Long> first = ahead.firstEntry();
+            if (first.getKey() != cursor + 1 && startedAt - first.getValue() < GAP_TIMEOUT) {
+                break;
+            }
+            cursor = first.getKey();
+            ahead.pollFirstEntry();
+        }
+        // an open gap may be an invalidation sent before this poll, so the node is only as current as before
+        if (ahead.isEmpty()) {
+            syncedAt = startedAt;
+        }
+
+        if (startedAt - prunedAt > retention / 2) {
+            jdbcTemplate.update("DELETE FROM ship_invalidation WHERE created < ?", startedAt - retention);
+            prunedAt = startedAt;
+        }
+    }
+}
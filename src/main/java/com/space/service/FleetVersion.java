@@ -0,0 +1,79 @@
+package com.space.service;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fleet-wide modification counter, advanced on every committed ship change. Any result set read
+ * after taking a {@link Stamp} is at least as new as the stamp, so it can serve as the validator
+ * of list and count responses.
+ */
+@Component
+public class FleetVersion implements ShipEventListener, InitializingBean, DisposableBean {
+
+    @Autowired
+    private ShipEventBus shipEventBus;
+
+    // distinguishes the counters of different application runs
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicReference<Stamp> current = new AtomicReference<>(new Stamp(epoch, 0, System.currentTimeMillis()));
+
+    @Override
+    public void afterPropertiesSet() {
+        shipEventBus.subscribe(this);
+    }
+
+    @Override
+    public void destroy() {
+        shipEventBus.unsubscribe(this);
+    }
+
+    @Override
+    public void onShipEvent(ShipEvent event) {
+        advance();
+    }
+
+    public Stamp current() {
+        return current.get();
+    }
+
+    public Stamp advance() {
+        return current.updateAndGet(stamp -> new Stamp(epoch, stamp.version + 1,
+                Math.max(System.currentTimeMillis(), stamp.lastModified)));
+    }
+
+    public static class Stamp {
+
+        private final String epoch;
+        private final long version;
+        private final long lastModified;
+
+        private Stamp(String epoch, long version, long lastModified) {
+            this.epoch = epoch;
+            this.version = version;
+            this.lastModified = lastModified;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getETag() {
+            return "W/\"" + epoch + "." + version + "\"";
+        }
+
+        @Override
+        public String toString() {
+            return epoch + "." + version;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.space.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link ShipInvalidation}s between the nodes of the fleet for the {@link ShipInvalidationBus}.
+ * A node never receives its own invalidations.
+ */
+public interface InvalidationTransport {
+
+    void start(String node, Consumer<ShipInvalidation> receiver);
+
+    void send(ShipInvalidation invalidation);
+
+    // every invalidation sent by another node before this time has been received
+    long getSyncedAt();
+
+    void stop();
+}
@@ -0,0 +1,43 @@
+package com.space.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers invalidations right away to the other nodes started in the same JVM, e.g. several
+ * application contexts of a test.
+ */
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+    private static final List<LoopbackInvalidationTransport> NODES = new CopyOnWriteArrayList<>();
+
+    private volatile String node;
+    private volatile Consumer<ShipInvalidation> receiver;
+
+    @Override
+    public void start(String node, Consumer<ShipInvalidation> receiver) {
+        this.node = node;
+        this.receiver = receiver;
+        NODES.add(this);
+    }
+
+    @Override
+    public void send(ShipInvalidation invalidation) {
+        for (LoopbackInvalidationTransport other : NODES) {
+            if (!other.node.equals(invalidation.getNode())) {
+                other.receiver.accept(invalidation);
+            }
+        }
+    }
+
+    @Override
+    public long getSyncedAt() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void stop() {
+        NODES.remove(this);
+    }
+}
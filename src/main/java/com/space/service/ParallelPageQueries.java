@@ -0,0 +1,216 @@
+package com.space.service;
+
+import com.space.config.QueryCapture;
+import com.space.model.Ship;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in ({@code cosmoport.parallel-count.enabled}) counting of a page next to its content, each on a
+ * connection of its own, so a full page takes about as long as the slower of the two queries instead of
+ * both together. At most {@code .max-concurrent} counts run aside, which caps the extra connections;
+ * when all of them are busy the page is read the serial way.
+ *
+ * <p>The two statements do not share a transaction. When the {@link FleetVersion} moves while they
+ * run, content and total may disagree, and the page is read again the serial way.
+ *
+ * <p>A count the page ends up not needing, because the page is short, its content failed or it is read
+ * again, is cancelled along with its running statement, so it gives its slot and connection back at once.
+ */
+@Component
+public class ParallelPageQueries implements MeterBinder, InitializingBean, DisposableBean {
+
+    @Autowired
+    private FleetVersion fleetVersion;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${cosmoport.parallel-count.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cosmoport.parallel-count.max-concurrent:4}")
+    private int maxConcurrent;
+
+    private final AtomicLong parallel = new AtomicLong();
+    private final AtomicLong busy = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        if (enabled) {
+            AtomicInteger threads = new AtomicInteger();
+            executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "ship-count-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Page<Ship> page(Pageable pageable, Supplier<List<Ship>> content, Supplier<Long> count, Supplier<Page<Ship>> serial) {
+        FleetVersion.Stamp before = fleetVersion.current();
+
+        SideCount total = new SideCount(count);
+        try {
+            executor.execute(QueryCapture.propagate(total.future));
+        } catch (RejectedExecutionException e) {
+            busy.incrementAndGet();
+            return serial.get();
+        }
+
+        Page<Ship> page;
+        try {
+            page = PageableExecutionUtils.getPage(content.get(), pageable, total::join);
+        } finally {
+            total.cancel();
+        }
+        if (fleetVersion.current() != before) {
+            retried.incrementAndGet();
+            return serial.get();
+        }
+        parallel.incrementAndGet();
+        return page;
+    }
+
+    // a count in a transaction of its own, whose statement can be cancelled from the thread of the page
+    private class SideCount implements Callable<Long> {
+
+        private final Supplier<Long> count;
+        private final FutureTask<Long> future = new FutureTask<>(this);
+        private volatile Session session;
+
+        SideCount(Supplier<Long> count) {
+            this.count = count;
+        }
+
+        @Override
+        public Long call() {
+            return transactionTemplate.execute(status -> {
+                session = entityManager.unwrap(Session.class);
+                // cancelled before its statement was there to cancel
+                if (future.isCancelled()) {
+                    throw new CancellationException();
+                }
+                return count.get();
+            });
+        }
+
+        long join() {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // does nothing once the count has finished
+        void cancel() {
+            if (future.cancel(true)) {
+                cancelled.incrementAndGet();
+                Session running = session;
+                if (running != null) {
+                    try {
+                        running.cancelQuery();
+                    } catch (IllegalStateException | HibernateException e) {
+                        // the interrupted count already ended and closed its statement or session
+                    }
+                }
+            }
+        }
+    }
+
+    public int getActive() {
+        return executor == null ? 0 : executor.getActiveCount();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ship.query.parallel.count.active", this, ParallelPageQueries::getActive)
+                .description("Counts running next to the content of their page")
+                .register(registry);
+        bind(registry, "parallel", parallel);
+        bind(registry, "busy", busy);
+        bind(registry, "retried", retried);
+        FunctionCounter.builder("ship.query.parallel.count.cancelled", cancelled, AtomicLong::get)
+                .description("Counts cancelled as their page did not need them")
+                .register(registry);
+    }
+
+    private static void bind(MeterRegistry registry, String result, AtomicLong counter) {
+        FunctionCounter.builder("ship.query.parallel.pages", counter, AtomicLong::get)
+                .description("Pages read with the count aside, read serially as all counts were busy, or read again after a change")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("maxConcurrent", maxConcurrent);
+        statistics.put("active", getActive());
+        statistics.put("parallel", parallel.get());
+        statistics.put("busy", busy.get());
+        statistics.put("retried", retried.get());
+        statistics.put("cancelled", cancelled.get());
+        return statistics;
+    }
+}
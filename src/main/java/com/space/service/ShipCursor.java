@@ -0,0 +1,116 @@
+package com.space.service;
+
+import com.space.BadRequestException;
+import com.space.model.Ship;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Keyset position in a ship listing: the sort value and id of the last ship a client has seen.
+ * The next slice starts strictly after it, so deep positions cost an index seek instead of an
+ * ever-growing offset, and concurrent inserts or deletes never shift rows between slices.
+ *
+ * <p>Clients get it as an opaque URL-safe token.
+ */
+public class ShipCursor {
+
+    private static final String ID = "id";
+
+    private final String field;
+    private final Comparable<?> value;
+    private final long id;
+
+    private ShipCursor(String field, Comparable<?> value, long id) {
+        this.field = field;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static ShipCursor after(Ship ship, String field) {
+        return new ShipCursor(field, valueOf(ship, field), ship.getId());
+    }
+
+    public static ShipCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", 3);
+            long id = Long.parseLong(parts[2]);
+            return new ShipCursor(parts[0], parse(parts[0], parts[1]), id);
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor " + token);
+        }
+    }
+
+    public static Sort sort(String field) {
+        return ID.equals(field) ? Sort.by(ID) : Sort.by(field, ID);
+    }
+
+    public String encode() {
+        Object raw = value instanceof LocalDate ? ((LocalDate) value).toEpochDay() : value;
+        String token = field + ":" + raw + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Specification<Ship> toSpecification() {
+        return (root, query, criteriaBuilder) -> {
+            Path<Long> idPath = root.get(ID);
+            if (ID.equals(field)) {
+                return criteriaBuilder.greaterThan(idPath, id);
+            }
+
+            Path<Comparable> path = root.get(field);
+            Comparable comparable = value;
+            return criteriaBuilder.or(criteriaBuilder.greaterThan(path, comparable),
+                    criteriaBuilder.and(criteriaBuilder.equal(path, comparable), criteriaBuilder.greaterThan(idPath, id)));
+        };
+    }
+
+    private static Comparable<?> valueOf(Ship ship, String field) {
+        switch (field) {
+            case ID:
+                return ship.getId();
+            case "speed":
+                return ship.getSpeed();
+            case "prodDate":
+                return ship.getProdDate();
+            case "rating":
+                return ship.getRating();
+            default:
+                throw new IllegalArgumentException("Ships cannot be scrolled by " + field);
+        }
+    }
+
+    private static Comparable<?> parse(String field, String value) {
+        switch (field) {
+            case ID:
+                return Long.valueOf(value);
+            case "speed":
+            case "rating":
+                return Double.valueOf(value);
+            case "prodDate":
+                return LocalDate.ofEpochDay(Long.parseLong(value));
+            default:
+                throw new IllegalArgumentException("Ships cannot be scrolled by " + field);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return field + ":" + value + ":" + id;
+    }
+}
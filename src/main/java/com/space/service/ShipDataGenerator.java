@@ -0,0 +1,85 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Deterministic source of valid ships for load and performance tests. Every generated ship passes
+ * the create validation of {@link ShipServiceImpl} and carries the rating it would compute.
+ */
+public class ShipDataGenerator {
+
+    private static final String[] NAMES = {"Orion", "Daedalus", "Excalibur", "Explorer", "Hermes", "Odyssey",
+            "Serenity", "Avalon", "Arcadia", "Hyperion", "Nostromo", "Tardis", "Vorlon", "Titan", "Centaur",
+            "Prometheus", "Normandy", "Liberator", "Argonaut", "Nemesis"};
+    private static final String[] PLANETS = {"Mercury", "Venus", "Earth", "Mars", "Jupiter", "Saturn", "Uranus", "Neptune"};
+    private static final int BATCH = 5_000;
+
+    private final Random random;
+    private long sequence;
+
+    public ShipDataGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public Ship next() {
+        Ship ship = new Ship();
+        sequence++;
+
+        ship.setName(NAMES[random.nextInt(NAMES.length)] + " " + sequence);
+        ship.setPlanet(PLANETS[random.nextInt(PLANETS.length)]);
+        ship.setShipType(ShipType.values()[random.nextInt(ShipType.values().length)]);
+
+        // years 2800..3019 accepted by checkProdDate; the first and last days of a year are skipped
+        // so that no time zone offset can push a date sent as epoch millis out of the range
+        ship.setProdDate(LocalDate.of(2800 + random.nextInt(220), 1, 2).plusDays(random.nextInt(363)));
+        ship.setProdYear(ship.getProdDate().getYear());
+
+        ship.setUsed(random.nextBoolean());
+        ship.setSpeed((1 + random.nextInt(99)) / 100d);
+        ship.setCrewSize(1 + random.nextInt(9999));
+        ship.setRating(ShipServiceImpl.calculateRating(ship));
+
+        return ship;
+    }
+
+    // bulk insert over plain JDBC, several times faster than going through JPA for millions of rows
+    public void insert(DataSource dataSource, int rows) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO ship " +
+                     "(name, planet, shipType, prodDate, prodYear, isUsed, speed, crewSize, rating) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            for (int i = 1; i <= rows; i++) {
+                Ship ship = next();
+                insert.setString(1, ship.getName());
+                insert.setString(2, ship.getPlanet());
+                insert.setString(3, ship.getShipType().name());
+                insert.setDate(4, java.sql.Date.valueOf(ship.getProdDate()));
+                insert.setInt(5, ship.getProdYear());
+                insert.setBoolean(6, ship.getUsed());
+                insert.setDouble(7, ship.getSpeed());
+                insert.setInt(8, ship.getCrewSize());
+                insert.setDouble(9, ship.getRating());
+                insert.addBatch();
+
+                if (i % BATCH == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+
+            insert.executeBatch();
+            connection.commit();
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
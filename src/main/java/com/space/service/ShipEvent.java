@@ -0,0 +1,60 @@
+package com.space.service;
+
+import com.space.model.Ship;
+
+public class ShipEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long shipId;
+    private final Ship ship;
+    private final Ship previous;
+    private final long timestamp;
+
+    private ShipEvent(Type type, Long shipId, Ship ship, Ship previous) {
+        this.type = type;
+        this.shipId = shipId;
+        this.ship = ship;
+        this.previous = previous;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public static ShipEvent created(Ship ship) {
+        return new ShipEvent(Type.CREATED, ship.getId(), ship, null);
+    }
+
+    public static ShipEvent updated(Ship previous, Ship ship) {
+        return new ShipEvent(Type.UPDATED, ship.getId(), ship, previous);
+    }
+
+    public static ShipEvent deleted(Long shipId) {
+        return new ShipEvent(Type.DELETED, shipId, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getShipId() {
+        return shipId;
+    }
+
+    // state after the change, null for DELETED
+    public Ship getShip() {
+        return ship;
+    }
+
+    // state before the change, set for UPDATED only and unknown for a change made on another node
+    public Ship getPrevious() {
+        return previous;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
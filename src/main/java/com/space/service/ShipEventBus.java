@@ -0,0 +1,38 @@
+package com.space.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process fan-out of committed ship changes. Listeners are invoked on the writing thread,
+ * so they must hand any slow work off to their own executor.
+ */
+@Component
+public class ShipEventBus {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShipEventBus.class);
+
+    private final List<ShipEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void subscribe(ShipEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(ShipEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void publish(ShipEvent event) {
+        for (ShipEventListener listener : listeners) {
+            try {
+                listener.onShipEvent(event);
+            } catch (RuntimeException e) {
+                LOG.warn("Ship event listener {} failed on {} of ship {}", listener, event.getType(), event.getShipId(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.space.service;
+
+public interface ShipEventListener {
+
+    void onShipEvent(ShipEvent event);
+}
@@ -0,0 +1,252 @@
+package com.space.service;
+
+import com.space.model.EpochDates;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * Request filter of the ship list. Binds the same query parameters as {@code GET /rest/ships}
+ * and can be turned into a {@link Specification} through the {@code filterBy*} methods of
+ * {@link ShipService} or evaluated against a single ship in memory with identical semantics.
+ */
+public class ShipFilter {
+
+    private String name;
+    private String planet;
+    private ShipType shipType;
+    private Long after;
+    private Long before;
+    private Integer minYear;
+    private Integer maxYear;
+    private Boolean isUsed;
+    private Double minSpeed;
+    private Double maxSpeed;
+    private Integer minCrewSize;
+    private Integer maxCrewSize;
+    private Double minRating;
+    private Double maxRating;
+
+    public Specification<Ship> toSpecification(ShipService shipService) {
+        return Specification.where(shipService.filterByName(name)
+                .and(shipService.filterByPlanet(planet)))
+                .and(shipService.filterByShipType(shipType))
+                .and(shipService.filterByProdDate(after, before))
+                .and(shipService.filterByProdYear(minYear, maxYear))
+                .and(shipService.filterByUsed(isUsed))
+                .and(shipService.filterBySpeed(minSpeed, maxSpeed))
+                .and(shipService.filterByCrewSize(minCrewSize, maxCrewSize))
+                .and(shipService.filterByRating(minRating, maxRating));
+    }
+
+    // active filters in filterBy* order, e.g. "name,shipType,speed"; "none" when nothing is set
+    public String getShape() {
+        StringJoiner shape = new StringJoiner(",");
+        if (name != null) shape.add("name");
+        if (planet != null) shape.add("planet");
+        if (shipType != null) shape.add("shipType");
+        if (after != null || before != null) shape.add("prodDate");
+        if (minYear != null || maxYear != null) shape.add("prodYear");
+        if (isUsed != null) shape.add("isUsed");
+        if (minSpeed != null || maxSpeed != null) shape.add("speed");
+        if (minCrewSize != null || maxCrewSize != null) shape.add("crewSize");
+        if (minRating != null || maxRating != null) shape.add("rating");
+        return shape.length() == 0 ? "none" : shape.toString();
+    }
+
+    public boolean matches(Ship ship) {
+        if (ship == null) {
+            return false;
+        }
+
+        return contains(ship.getName(), name)
+                && contains(ship.getPlanet(), planet)
+                && (shipType == null || shipType == ship.getShipType())
+                && between(ship.getProdDate() == null ? null : EpochDates.toMillis(ship.getProdDate()), after, before)
+                && between(ship.getProdDate() == null ? null : ship.getProdDate().getYear(), minYear, maxYear)
+                && (isUsed == null || isUsed.equals(ship.getUsed()))
+                && between(ship.getSpeed(), minSpeed, maxSpeed)
+                && between(ship.getCrewSize(), minCrewSize, maxCrewSize)
+                && between(ship.getRating(), minRating, maxRating);
+    }
+
+    private static boolean contains(String value, String part) {
+        if (part == null) {
+            return true;
+        }
+
+        return value != null && value.toLowerCase().contains(part.toLowerCase());
+    }
+
+    private static <T extends Comparable<T>> boolean between(T value, T from, T to) {
+        if (from == null && to == null) {
+            return true;
+        } else if (value == null) {
+            return false;
+        }
+
+        return (from == null || value.compareTo(from) >= 0) && (to == null || value.compareTo(to) <= 0);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPlanet() {
+        return planet;
+    }
+
+    public void setPlanet(String planet) {
+        this.planet = planet;
+    }
+
+    public ShipType getShipType() {
+        return shipType;
+    }
+
+    public void setShipType(ShipType shipType) {
+        this.shipType = shipType;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public void setAfter(Long after) {
+        this.after = after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public void setBefore(Long before) {
+        this.before = before;
+    }
+
+    public Integer getMinYear() {
+        return minYear;
+    }
+
+    public void setMinYear(Integer minYear) {
+        this.minYear = minYear;
+    }
+
+    public Integer getMaxYear() {
+        return maxYear;
+    }
+
+    public void setMaxYear(Integer maxYear) {
+        this.maxYear = maxYear;
+    }
+
+    public Boolean getIsUsed() {
+        return isUsed;
+    }
+
+    public void setIsUsed(Boolean isUsed) {
+        this.isUsed = isUsed;
+    }
+
+    public Double getMinSpeed() {
+        return minSpeed;
+    }
+
+    public void setMinSpeed(Double minSpeed) {
+        this.minSpeed = minSpeed;
+    }
+
+    public Double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public void setMaxSpeed(Double maxSpeed) {
+        this.maxSpeed = maxSpeed;
+    }
+
+    public Integer getMinCrewSize() {
+        return minCrewSize;
+    }
+
+    public void setMinCrewSize(Integer minCrewSize) {
+        this.minCrewSize = minCrewSize;
+    }
+
+    public Integer getMaxCrewSize() {
+        return maxCrewSize;
+    }
+
+    public void setMaxCrewSize(Integer maxCrewSize) {
+        this.maxCrewSize = maxCrewSize;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public void setMinRating(Double minRating) {
+        this.minRating = minRating;
+    }
+
+    public Double getMaxRating() {
+        return maxRating;
+    }
+
+    public void setMaxRating(Double maxRating) {
+        this.maxRating = maxRating;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ShipFilter that = (ShipFilter) o;
+        return Objects.equals(name, that.name) &&
+                Objects.equals(planet, that.planet) &&
+                shipType == that.shipType &&
+                Objects.equals(after, that.after) &&
+                Objects.equals(before, that.before) &&
+                Objects.equals(minYear, that.minYear) &&
+                Objects.equals(maxYear, that.maxYear) &&
+                Objects.equals(isUsed, that.isUsed) &&
+                Objects.equals(minSpeed, that.minSpeed) &&
+                Objects.equals(maxSpeed, that.maxSpeed) &&
+                Objects.equals(minCrewSize, that.minCrewSize) &&
+                Objects.equals(maxCrewSize, that.maxCrewSize) &&
+                Objects.equals(minRating, that.minRating) &&
+                Objects.equals(maxRating, that.maxRating);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, planet, shipType, after, before, minYear, maxYear, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+    }
+
+    @Override
+    public String toString() {
+        return "ShipFilter{" +
+                "name='" + name + '\'' +
+                ", planet='" + planet + '\'' +
+                ", shipType=" + shipType +
+                ", after=" + after +
+                ", before=" + before +
+                ", minYear=" + minYear +
+                ", maxYear=" + maxYear +
+                ", isUsed=" + isUsed +
+                ", minSpeed=" + minSpeed +
+                ", maxSpeed=" + maxSpeed +
+                ", minCrewSize=" + minCrewSize +
+                ", maxCrewSize=" + maxCrewSize +
+                ", minRating=" + minRating +
+                ", maxRating=" + maxRating +
+                '}';
+    }
+}
@@ -0,0 +1,41 @@
+package com.space.service;
+
+/**
+ * Notice to the other nodes of the fleet that a ship changed on {@code node}: entries for the ship
+ * and every list or count result may be stale from {@code timestamp} on.
+ */
+public class ShipInvalidation {
+
+    private final String node;
+    private final ShipEvent.Type type;
+    private final Long shipId;
+    private final long timestamp;
+
+    public ShipInvalidation(String node, ShipEvent.Type type, Long shipId, long timestamp) {
+        this.node = node;
+        this.type = type;
+        this.shipId = shipId;
+        this.timestamp = timestamp;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public ShipEvent.Type getType() {
+        return type;
+    }
+
+    public Long getShipId() {
+        return shipId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return type + " of ship " + shipId + " on " + node;
+    }
+}
@@ -0,0 +1,183 @@
+package com.space.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the node-local state of several application nodes behind a load balancer coherent. Every
+ * committed ship change is sent to the other nodes over {@code cosmoport.invalidation.transport}
+ * ({@code none}, {@code loopback} or {@code database}); a received invalidation advances the
+ * {@link FleetVersion}, which retires the validators of every list and count, and is handed to the
+ * listeners of the ship id.
+ *
+ * <p>The database transport delivers within about {@code .poll-interval} ms. A node that has not been
+ * in sync for longer than {@code .max-staleness} ms is not {@link #isCoherent() coherent}, and its
+ * validators are no longer trusted until it is. An invalidation whose insert commits late leaves a gap
+ * in the poll cursor, and the node stays unsynced until the gap fills or
+ * {@link DatabaseInvalidationTransport#GAP_TIMEOUT} (10 s) passes. That exceeds the default
+ * {@code .max-staleness} of 5 s, so one slow insert can make every other node incoherent for up to
+ * 10 s; raise {@code .max-staleness} above the gap timeout if validators should survive it.
+ */
+@Component
+public class ShipInvalidationBus implements ShipEventListener, MeterBinder, InitializingBean, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShipInvalidationBus.class);
+
+    @Autowired
+    private ShipEventBus shipEventBus;
+
+    @Autowired
+    private FleetVersion fleetVersion;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${cosmoport.invalidation.transport:none}")
+    private String transportName;
+
+    @Value("${cosmoport.invalidation.node:}")
+    private String node;
+
+    @Value("${cosmoport.invalidation.poll-interval:1000}")
+    private long pollInterval;
+
+    @Value("${cosmoport.invalidation.retention:60000}")
+    private long retention;
+
+    @Value("${cosmoport.invalidation.max-staleness:5000}")
+    private long maxStaleness;
+
+    private final List<Consumer<ShipInvalidation>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+
+    private InvalidationTransport transport;
+    private volatile Timer lag;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!StringUtils.hasText(node)) {
+            node = UUID.randomUUID().toString();
+        }
+
+        transport = createTransport(transportName.trim());
+        if (transport != null) {
+            transport.start(node, this::receive);
+            shipEventBus.subscribe(this);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (transport != null) {
+            shipEventBus.unsubscribe(this);
+            transport.stop();
+        }
+    }
+
+    private InvalidationTransport createTransport(String name) {
+        switch (name) {
+            case "none":
+                return null;
+            case "loopback":
+                return new LoopbackInvalidationTransport();
+            case "database":
+                return new DatabaseInvalidationTransport(dataSource, pollInterval, retention);
+            default:
+                throw new IllegalArgumentException("Unknown invalidation transport " + name);
+        }
+    }
+
+    @Override
+    public void onShipEvent(ShipEvent event) {
+        transport.send(new ShipInvalidation(node, event.getType(), event.getShipId(), event.getTimestamp()));
+        sent.incrementAndGet();
+    }
+
+    private void receive(ShipInvalidation invalidation) {
+        received.incrementAndGet();
+        if (lag != null) {
+            lag.record(Math.max(0, System.currentTimeMillis() - invalidation.getTimestamp()), TimeUnit.MILLISECONDS);
+        }
+
+        fleetVersion.advance();
+        for (Consumer<ShipInvalidation> listener : listeners) {
+            try {
+                listener.accept(invalidation);
+            } catch (RuntimeException e) {
+                LOG.warn("Invalidation listener {} failed on {}", listener, invalidation, e);
+            }
+        }
+    }
+
+    // listeners are invoked on the thread of the transport
+    public void subscribe(Consumer<ShipInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(Consumer<ShipInvalidation> listener) {
+        listeners.remove(listener);
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    // ms since which changes of other nodes may not have arrived yet
+    public long getStaleness() {
+        return transport == null ? 0 : Math.max(0, System.currentTimeMillis() - transport.getSyncedAt());
+    }
+
+    public boolean isCoherent() {
+        return getStaleness() <= maxStaleness;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        lag = Timer.builder("ship.invalidation.lag")
+                .description("Time from a change on another node to its invalidation here")
+                .register(registry);
+        Gauge.builder("ship.invalidation.staleness", this, ShipInvalidationBus::getStaleness)
+                .description("Milliseconds since which changes of other nodes may be missing")
+                .baseUnit("milliseconds")
+                .register(registry);
+        FunctionCounter.builder("ship.invalidation.sent", sent, AtomicLong::get)
+                .description("Invalidations sent to the other nodes")
+                .register(registry);
+        FunctionCounter.builder("ship.invalidation.received", received, AtomicLong::get)
+                .description("Invalidations received from the other nodes")
+                .register(registry);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("transport", transportName);
+        statistics.put("node", node);
+        statistics.put("coherent", isCoherent());
+        statistics.put("staleness", getStaleness());
+        statistics.put("sent", sent.get());
+        statistics.put("received", received.get());
+        return statistics;
+    }
+}
@@ -0,0 +1,81 @@
+package com.space.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the service and repository layer. Query timers are tagged with the operation and the
+ * filter shape, which has at most 2^8 values, so the number of series stays bounded. Each meter is
+ * built and registered once and then looked up, so recording stays off the registry's lock.
+ */
+@Component
+public class ShipMetrics {
+
+    private final MeterRegistry registry;
+    private final Timer compose;
+    private final Map<List<String>, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rows = new ConcurrentHashMap<>();
+
+    public ShipMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.compose = Timer.builder("ship.query.compose")
+                .description("Time spent composing the filter Specification")
+                .register(registry);
+    }
+
+    public <T> T compose(Supplier<T> composition) {
+        long start = System.nanoTime();
+        try {
+            return composition.get();
+        } finally {
+            compose.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public <T> T query(String operation, ShipFilter filter, Supplier<T> query) {
+        return time(operation, filter == null ? "none" : filter.getShape(), query);
+    }
+
+    public <T> T query(String operation, Supplier<T> query) {
+        return time(operation, "none", query);
+    }
+
+    public void rows(String operation, int rows) {
+        this.rows.computeIfAbsent(operation, key -> DistributionSummary.builder("ship.query.rows")
+                .description("Rows returned per query")
+                .tag("operation", operation)
+                .register(registry))
+                .record(rows);
+    }
+
+    private <T> T time(String operation, String shape, Supplier<T> query) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "success";
+        try {
+            return query.get();
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(timer(operation, shape, outcome));
+        }
+    }
+
+    private Timer timer(String operation, String shape, String outcome) {
+        return timers.computeIfAbsent(Arrays.asList(operation, shape, outcome), key -> Timer.builder("ship.query")
+                .description("Repository query execution time")
+                .tag("operation", operation)
+                .tag("shape", shape)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+}
@@ -0,0 +1,256 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in speculative read of the next page ({@code cosmoport.prefetch.enabled}). After a page is served,
+ * the page after it is loaded on a low-priority executor and kept for {@code .ttl} ms, at most
+ * {@code .capacity} pages, so a client paging forward gets it without a query. Cached pages belong to the
+ * {@link FleetVersion} they were read at and are not served once the fleet has changed.
+ *
+ * <p>Every {@code .window} prefetches the share that was used is checked. Below {@code .min-hit-rate},
+ * prefetching pauses for {@code .cooldown} ms, so it does not add DB load where clients do not page forward.
+ */
+@Component
+public class ShipPagePrefetcher implements MeterBinder, InitializingBean, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShipPagePrefetcher.class);
+
+    @Autowired
+    private FleetVersion fleetVersion;
+
+    @Value("${cosmoport.prefetch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cosmoport.prefetch.ttl:5000}")
+    private long ttl;
+
+    @Value("${cosmoport.prefetch.capacity:1000}")
+    private int capacity;
+
+    @Value("${cosmoport.prefetch.threads:1}")
+    private int threads;
+
+    @Value("${cosmoport.prefetch.window:100}")
+    private int window;
+
+    @Value("${cosmoport.prefetch.min-hit-rate:0.2}")
+    private double minHitRate;
+
+    @Value("${cosmoport.prefetch.cooldown:60000}")
+    private long cooldown;
+
+    private final Map<List<Object>, Prefetched> pages = new ConcurrentHashMap<>();
+    private final Set<List<Object>> loading = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong prefetched = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong pauses = new AtomicLong();
+
+    // prefetches and hits since the last check of the hit rate
+    private int windowPrefetched;
+    private int windowHits;
+    private volatile long pausedUntil;
+
+    private ThreadPoolExecutor executor;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            AtomicInteger counter = new AtomicInteger();
+            // speculative work: what does not fit in the queue is rejected and given up by prefetch
+            executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity), runnable -> {
+                Thread thread = new Thread(runnable, "ship-prefetch-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // the prefetched page, null when there is none for the current state of the fleet
+    public Page<Ship> get(ShipFilter filter, Pageable pageable) {
+        List<Object> key = Arrays.asList(filter, pageable);
+        Prefetched page = pages.get(key);
+        if (page == null) {
+            return null;
+        }
+        if (page.expiresAt < System.currentTimeMillis() || page.version != fleetVersion.current().getVersion()) {
+            pages.remove(key, page);
+            return null;
+        }
+
+        if (page.used.compareAndSet(0, 1)) {
+            hits.incrementAndGet();
+            synchronized (this) {
+                windowHits++;
+            }
+        }
+        return page.page;
+    }
+
+    // loads the page in the background unless it is cached or loading already
+    public void prefetch(ShipFilter filter, Pageable pageable, Supplier<Page<Ship>> loader) {
+        long now = System.currentTimeMillis();
+        if (now < pausedUntil) {
+            return;
+        }
+
+        List<Object> key = Arrays.asList(filter, pageable);
+        long version = fleetVersion.current().getVersion();
+        Prefetched cached = pages.get(key);
+        if (cached != null && cached.version == version && cached.expiresAt >= now + ttl / 2) {
+            return;
+        }
+        if (pages.size() >= capacity) {
+            pages.values().removeIf(page -> page.expiresAt < now);
+            if (pages.size() >= capacity) {
+                return;
+            }
+        }
+        if (!loading.add(key)) {
+            return;
+        }
+        if (!admit(now)) {
+            loading.remove(key);
+            return;
+        }
+
+        prefetched.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    pages.put(key, new Prefetched(loader.get(), version, System.currentTimeMillis() + ttl));
+                } catch (RuntimeException e) {
+                    LOG.debug("Prefetch of page {} failed", pageable, e);
+                } finally {
+                    loading.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the queue is full or the executor shut down: the page is not loading and does not count
+            prefetched.decrementAndGet();
+            unadmit();
+            loading.remove(key);
+        }
+    }
+
+    // counts the prefetch into the window, which pauses prefetching when too few of its pages were used
+    private synchronized boolean admit(long now) {
+        if (windowPrefetched >= window) {
+            double hitRate = (double) windowHits / windowPrefetched;
+            windowPrefetched = 0;
+            windowHits = 0;
+            if (hitRate < minHitRate) {
+                pausedUntil = now + cooldown;
+                pauses.incrementAndGet();
+                pages.clear();
+                LOG.info("Prefetch hit rate {} is below {}, pausing for {} ms", hitRate, minHitRate, cooldown);
+                return false;
+            }
+        }
+        windowPrefetched++;
+        return true;
+    }
+
+    private synchronized void unadmit() {
+        if (windowPrefetched > 0) {
+            windowPrefetched--;
+        }
+    }
+
+    public boolean isPaused() {
+        return System.currentTimeMillis() < pausedUntil;
+    }
+
+    public int getCached() {
+        return pages.size();
+    }
+
+    public int getLoading() {
+        return loading.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ship.prefetch.cached", this, ShipPagePrefetcher::getCached)
+                .description("Prefetched pages held")
+                .register(registry);
+        Gauge.builder("ship.prefetch.loading", this, ShipPagePrefetcher::getLoading)
+                .description("Prefetches queued or running")
+                .register(registry);
+        Gauge.builder("ship.prefetch.paused", this, prefetcher -> prefetcher.isPaused() ? 1 : 0)
+                .description("1 while prefetching pauses for a low hit rate")
+                .register(registry);
+        FunctionCounter.builder("ship.prefetch.pages", prefetched, AtomicLong::get)
+                .description("Next pages loaded speculatively")
+                .register(registry);
+        FunctionCounter.builder("ship.prefetch.hits", hits, AtomicLong::get)
+                .description("Prefetched pages that were requested")
+                .register(registry);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("paused", isPaused());
+        statistics.put("cached", getCached());
+        statistics.put("loading", getLoading());
+        statistics.put("prefetched", prefetched.get());
+        statistics.put("hits", hits.get());
+        statistics.put("pauses", pauses.get());
+        return statistics;
+    }
+
+    private static class Prefetched {
+
+        private final Page<Ship> page;
+        private final long version;
+        private final long expiresAt;
+        private final AtomicInteger used = new AtomicInteger();
+
+        Prefetched(Page<Ship> page, long version, long expiresAt) {
+            this.page = page;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
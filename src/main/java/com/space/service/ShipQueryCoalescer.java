@@ -0,0 +1,81 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Shares list and count queries between concurrent callers ({@code cosmoport.coalescing.enabled}). A
+ * caller only joins a query keyed by the {@link FleetVersion} it observed on arrival, so a query that
+ * started before a change committed is never handed to a caller that knows of the change, such as the
+ * client that made it.
+ */
+@Component
+public class ShipQueryCoalescer implements MeterBinder {
+
+    @Autowired
+    private FleetVersion fleetVersion;
+
+    private final SingleFlight<List<Object>, Page<Ship>> pages = new SingleFlight<>();
+    private final SingleFlight<List<Object>, Long> counts = new SingleFlight<>();
+
+    @Value("${cosmoport.coalescing.enabled:true}")
+    private boolean enabled;
+
+    public Page<Ship> page(ShipFilter filter, Pageable pageable, Supplier<Page<Ship>> query) {
+        return enabled ? pages.execute(Arrays.asList(filter, pageable, fleetVersion.current().getVersion()), query) : query.get();
+    }
+
+    public long count(ShipFilter filter, Supplier<Long> query) {
+        return enabled ? counts.execute(Arrays.asList(filter, fleetVersion.current().getVersion()), query) : query.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "list", pages);
+        bind(registry, "count", counts);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("list", statistics(pages));
+        statistics.put("count", statistics(counts));
+        return statistics;
+    }
+
+    private static void bind(MeterRegistry registry, String query, SingleFlight<?, ?> singleFlight) {
+        FunctionCounter.builder("ship.query.coalescing.executions", singleFlight, SingleFlight::getExecutions)
+                .description("Queries that reached the database")
+                .tag("query", query)
+                .register(registry);
+        FunctionCounter.builder("ship.query.coalescing.coalesced", singleFlight, SingleFlight::getCoalesced)
+                .description("Queries answered by an identical query already in flight")
+                .tag("query", query)
+                .register(registry);
+        Gauge.builder("ship.query.coalescing.in.flight", singleFlight, SingleFlight::getInFlight)
+                .tag("query", query)
+                .register(registry);
+    }
+
+    private static Map<String, Object> statistics(SingleFlight<?, ?> singleFlight) {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("executions", singleFlight.getExecutions());
+        statistics.put("coalesced", singleFlight.getCoalesced());
+        statistics.put("inFlight", singleFlight.getInFlight());
+        return statistics;
+    }
+}
@@ -0,0 +1,169 @@
+package com.space.service;
+
+import com.space.model.EpochDates;
+import com.space.repository.ShipQuery;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Precompiled list and count queries ({@code cosmoport.queries.precompiled}). The JPQL of every
+ * combination of set filter bounds and order is rendered once and kept, so a request only collects its
+ * bind values instead of building Specifications and a Criteria tree that Hibernate renders again.
+ * The predicates are those of the {@code filterBy*} methods of {@link ShipServiceImpl}.
+ */
+@Component
+public class ShipQueryRegistry implements MeterBinder {
+
+    private static final Set<String> ATTRIBUTES = new HashSet<>(Arrays.asList(
+            "id", "name", "planet", "shipType", "prodDate", "prodYear", "isUsed", "speed", "crewSize", "rating"));
+
+    private enum Parameter {
+        NAME("s.name like :name"),
+        PLANET("s.planet like :planet"),
+        SHIP_TYPE("s.shipType = :shipType"),
+        AFTER_YEAR("s.prodYear >= :afterYear"),
+        BEFORE_YEAR("s.prodYear <= :beforeYear"),
+        AFTER("s.prodDate >= :after"),
+        BEFORE("s.prodDate <= :before"),
+        MIN_YEAR("s.prodYear >= :minYear"),
+        MAX_YEAR("s.prodYear <= :maxYear"),
+        IS_USED("s.isUsed = :isUsed"),
+        MIN_SPEED("s.speed >= :minSpeed"),
+        MAX_SPEED("s.speed <= :maxSpeed"),
+        MIN_CREW_SIZE("s.crewSize >= :minCrewSize"),
+        MAX_CREW_SIZE("s.crewSize <= :maxCrewSize"),
+        MIN_RATING("s.rating >= :minRating"),
+        MAX_RATING("s.rating <= :maxRating");
+
+        private final String predicate;
+        private final String name;
+
+        Parameter(String predicate) {
+            this.predicate = predicate;
+            this.name = predicate.substring(predicate.indexOf(':') + 1);
+        }
+    }
+
+    private final Map<List<Object>, String[]> statements = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Value("${cosmoport.queries.precompiled:true}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public ShipQuery compile(ShipFilter filter, Sort sort) {
+        Map<Parameter, Object> values = values(filter);
+
+        List<Object> key = Arrays.asList(values.keySet().toString(), sort);
+        String[] statement = statements.get(key);
+        if (statement == null) {
+            misses.incrementAndGet();
+            statement = statements.computeIfAbsent(key, shape -> render(values.keySet(), sort));
+        } else {
+            hits.incrementAndGet();
+        }
+
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        for (Map.Entry<Parameter, Object> value : values.entrySet()) {
+            parameters.put(value.getKey().name, value.getValue());
+        }
+        return new ShipQuery(statement[0], statement[1], parameters);
+    }
+
+    private static Map<Parameter, Object> values(ShipFilter filter) {
+        Map<Parameter, Object> values = new EnumMap<>(Parameter.class);
+        put(values, Parameter.NAME, filter.getName() == null ? null : "%" + filter.getName() + "%");
+        put(values, Parameter.PLANET, filter.getPlanet() == null ? null : "%" + filter.getPlanet() + "%");
+        put(values, Parameter.SHIP_TYPE, filter.getShipType());
+
+        // the year range always applies, the dates only when a bound falls inside a year
+        LocalDate from = filter.getAfter() == null ? null : EpochDates.ceil(filter.getAfter());
+        LocalDate to = filter.getBefore() == null ? null : EpochDates.toLocalDate(filter.getBefore());
+        put(values, Parameter.AFTER_YEAR, from == null ? null : from.getYear());
+        put(values, Parameter.BEFORE_YEAR, to == null ? null : to.getYear());
+        boolean wholeYears = (from == null || from.getDayOfYear() == 1)
+                && (to == null || to.equals(to.with(TemporalAdjusters.lastDayOfYear())));
+        if (!wholeYears) {
+            put(values, Parameter.AFTER, from);
+            put(values, Parameter.BEFORE, to);
+        }
+
+        put(values, Parameter.MIN_YEAR, filter.getMinYear());
+        put(values, Parameter.MAX_YEAR, filter.getMaxYear());
+        put(values, Parameter.IS_USED, filter.getIsUsed());
+        put(values, Parameter.MIN_SPEED, filter.getMinSpeed());
+        put(values, Parameter.MAX_SPEED, filter.getMaxSpeed());
+        put(values, Parameter.MIN_CREW_SIZE, filter.getMinCrewSize());
+        put(values, Parameter.MAX_CREW_SIZE, filter.getMaxCrewSize());
+        put(values, Parameter.MIN_RATING, filter.getMinRating());
+        put(values, Parameter.MAX_RATING, filter.getMaxRating());
+        return values;
+    }
+
+    private static void put(Map<Parameter, Object> values, Parameter parameter, Object value) {
+        if (value != null) {
+            values.put(parameter, value);
+        }
+    }
+
+    private static String[] render(Set<Parameter> parameters, Sort sort) {
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        for (Parameter parameter : parameters) {
+            where.add(parameter.predicate);
+        }
+
+        StringJoiner orderBy = new StringJoiner(", ", " order by ", "").setEmptyValue("");
+        for (Sort.Order order : sort) {
+            if (!ATTRIBUTES.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Ships cannot be ordered by " + order.getProperty());
+            }
+            orderBy.add("s." + order.getProperty() + (order.isAscending() ? " asc" : " desc"));
+        }
+
+        return new String[]{
+                "select s from Ship s" + where + orderBy,
+                "select count(s) from Ship s" + where
+        };
+    }
+
+    public int getStatements() {
+        return statements.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ship.query.precompiled.statements", this, ShipQueryRegistry::getStatements)
+                .description("Filter shapes and orders with a rendered query")
+                .register(registry);
+        FunctionCounter.builder("ship.query.precompiled.lookups", hits, AtomicLong::get)
+                .description("Queries served from a rendered statement")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("ship.query.precompiled.lookups", misses, AtomicLong::get)
+                .description("Queries served from a rendered statement")
+                .tag("result", "miss")
+                .register(registry);
+    }
+}
@@ -2,6 +2,7 @@ package com.space.service;
 
 import com.space.model.Ship;
 import com.space.model.ShipType;
+import com.space.model.ShipYearCount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -19,8 +20,18 @@ public interface ShipService {
 
     Page<Ship> getAllShips(Specification<Ship> specification, Pageable sortedByName);
 
+    Page<Ship> getShips(ShipFilter filter, Pageable pageable);
+
+    long countShips(ShipFilter filter);
+
+    List<Ship> scrollShips(ShipFilter filter, String orderField, ShipCursor after, int limit);
+
+    List<ShipYearCount> countShipsByYear(ShipFilter filter);
+
     Ship createShip(Ship ship);
 
+    List<Ship> createShips(List<Ship> ships);
+
     Ship updateShip(String id, Ship ship);
 
     void deleteShip(String id);
@@ -33,6 +44,8 @@ public interface ShipService {
 
     Specification<Ship> filterByProdDate(Long dateBefore, Long dateAfter);
 
+    Specification<Ship> filterByProdYear(Integer yearFrom, Integer yearTo);
+
     Specification<Ship> filterByCrewSize(Integer crewSizeFrom, Integer creSizeTo);
 
     Specification<Ship> filterBySpeed(Double speedFrom, Double speedTo);
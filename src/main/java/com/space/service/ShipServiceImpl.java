@@ -2,28 +2,64 @@ package com.space.service;
 
 import com.space.BadRequestException;
 import com.space.ShipNotFoundException;
+import com.space.model.EpochDates;
 import com.space.model.Ship;
 import com.space.model.ShipType;
+import com.space.model.ShipYearCount;
+import com.space.repository.ShipQuery;
 import com.space.repository.ShipRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
-import java.util.Calendar;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.util.List;
+import java.util.function.Supplier;
 
 @Service
 public class ShipServiceImpl implements ShipService {
     @Autowired
     private ShipRepository shipRepository;
 
+    @Autowired
+    private ShipEventBus shipEventBus;
+
+    @Autowired
+    private ShipQueryCoalescer shipQueryCoalescer;
+
+    @Autowired
+    private ShipMetrics shipMetrics;
+
+    @Autowired
+    private ShipWriteBuffer shipWriteBuffer;
+
+    @Autowired
+    private ShipQueryRegistry shipQueryRegistry;
+
+    @Autowired
+    private ParallelPageQueries parallelPageQueries;
+
+    @Autowired
+    private ShipPagePrefetcher shipPagePrefetcher;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     @Override
     public Page<Ship> getAllShips(Specification<Ship> specification, Pageable sortedByField) {
         return shipRepository.findAll(specification, sortedByField);
@@ -34,32 +70,156 @@ public class ShipServiceImpl implements ShipService {
         return shipRepository.findAll(specification);
     }
 
+    @Override
+    public Page<Ship> getShips(ShipFilter filter, Pageable pageable) {
+        if (!shipPagePrefetcher.isEnabled()) {
+            return loadShips(filter, pageable);
+        }
+
+        Page<Ship> page = shipPagePrefetcher.get(filter, pageable);
+        if (page == null) {
+            page = loadShips(filter, pageable);
+        }
+        if (page.hasNext()) {
+            Pageable next = pageable.next();
+            shipPagePrefetcher.prefetch(filter, next, () -> loadShips(filter, next));
+        }
+        return page;
+    }
+
+    private Page<Ship> loadShips(ShipFilter filter, Pageable pageable) {
+        return shipQueryCoalescer.page(filter, pageable, () -> {
+            Page<Ship> page;
+            if (shipQueryRegistry.isEnabled()) {
+                ShipQuery query = shipMetrics.compose(() -> shipQueryRegistry.compile(filter, pageable.getSort()));
+                Supplier<Page<Ship>> serial = () -> shipMetrics.query("list", filter, () -> shipRepository.findAll(query, pageable));
+                page = !parallelPageQueries.isEnabled() ? serial.get() : parallelPageQueries.page(pageable,
+                        () -> shipMetrics.query("list", filter, () -> shipRepository.findContent(query, pageable)),
+                        () -> shipMetrics.query("count", filter, () -> shipRepository.count(query)),
+                        serial);
+            } else {
+                Specification<Ship> specification = shipMetrics.compose(() -> filter.toSpecification(this));
+                page = shipMetrics.query("list", filter, () -> shipRepository.findAll(specification, pageable));
+            }
+            shipMetrics.rows("list", page.getNumberOfElements());
+            return page;
+        });
+    }
+
+    @Override
+    public long countShips(ShipFilter filter) {
+        return shipQueryCoalescer.count(filter, () -> {
+            if (shipQueryRegistry.isEnabled()) {
+                ShipQuery query = shipMetrics.compose(() -> shipQueryRegistry.compile(filter, Sort.unsorted()));
+                return shipMetrics.query("count", filter, () -> shipRepository.count(query));
+            }
+            Specification<Ship> specification = shipMetrics.compose(() -> filter.toSpecification(this));
+            return shipMetrics.query("count", filter, () -> shipRepository.count(specification));
+        });
+    }
+
+    @Override
+    public List<Ship> scrollShips(ShipFilter filter, String orderField, ShipCursor after, int limit) {
+        if (after != null && !after.getField().equals(orderField)) {
+            throw new BadRequestException("Cursor " + after + " does not belong to the order by " + orderField);
+        }
+
+        Specification<Ship> specification = shipMetrics.compose(() -> after == null
+                ? filter.toSpecification(this)
+                : filter.toSpecification(this).and(after.toSpecification()));
+        List<Ship> ships = shipMetrics.query("scroll", filter,
+                () -> shipRepository.findAll(specification, ShipCursor.sort(orderField), limit));
+        shipMetrics.rows("scroll", ships.size());
+        return ships;
+    }
+
+    @Override
+    public List<ShipYearCount> countShipsByYear(ShipFilter filter) {
+        Specification<Ship> specification = shipMetrics.compose(() -> filter.toSpecification(this));
+        List<ShipYearCount> years = shipMetrics.query("years", filter, () -> shipRepository.countByProdYear(specification));
+        shipMetrics.rows("years", years.size());
+        return years;
+    }
 
     @Override
     public Ship createShip(Ship ship) {
+        prepareNewShip(ship);
+
+        Ship created = shipMetrics.query("create", () -> shipRepository.saveAndFlush(ship));
+        shipEventBus.publish(ShipEvent.created(created));
+
+        return created;
+    }
+
+    // all ships are validated before the first is written; ids come in blocks, so the inserts go out as one batch
+    @Override
+    public List<Ship> createShips(List<Ship> ships) {
+        if (ships == null || ships.isEmpty()) {
+            throw new BadRequestException("No ships to create");
+        }
+        for (Ship ship : ships) {
+            prepareNewShip(ship);
+        }
+
+        List<Ship> created = shipMetrics.query("create", () -> shipRepository.saveAll(ships));
+        shipMetrics.rows("create", created.size());
+        for (Ship ship : created) {
+            shipEventBus.publish(ShipEvent.created(ship));
+        }
+
+        return created;
+    }
+
+    // a new ship always gets an id of its own, whatever id the client sent
+    private void prepareNewShip(Ship ship) {
         checkShipParameters(ship);
+        ship.setId(null);
 
         if (ship.getUsed() == null || ship.getUsed().equals("")){
             ship.setUsed(false);
         }
 
+        ship.setProdYear(ship.getProdDate().getYear());
         ship.setRating(calculateRating(ship));
-
-        return shipRepository.saveAndFlush(ship);
     }
 
     @Override
     public Ship updateShip(String id, Ship ship) {
         checkShip(ship);
         long longId = idValidation(id);
-        Ship updateShip;
 
+        if (shipWriteBuffer.isBuffering(longId)) {
+            return shipWriteBuffer.update(longId, () -> findShip(longId), current -> applyChanges(current, ship));
+        }
+
+        // one persistence context, so saving the loaded ship does not select it again to merge it
+        ShipEvent event;
+        try {
+            event = transactionTemplate.execute(status -> {
+                Ship updateShip = findShip(longId);
+                Ship previous = copyOf(updateShip);
+
+                Ship changed = applyChanges(updateShip, ship);
+                return ShipEvent.updated(previous, shipMetrics.query("update", () -> shipRepository.saveAndFlush(changed)));
+            });
+        } catch (EmptyResultDataAccessException e) {
+            // deleted between loading and saving
+            throw new ShipNotFoundException("Ship Not Found!");
+        }
+        shipEventBus.publish(event);
+
+        return event.getShip();
+    }
+
+    private Ship findShip(long id) {
         try {
-             updateShip = shipRepository.findById(longId).get();
+            return shipMetrics.query("lookup", () -> shipRepository.findById(id)).get();
         } catch (Exception e){
             throw new ShipNotFoundException("Ship Not Found!");
         }
+    }
 
+    private Ship applyChanges(Ship updateShip, Ship ship) {
         if (ship.getName() != null && checkName(ship)) {
             updateShip.setName(ship.getName());
         }
@@ -70,6 +230,7 @@ public class ShipServiceImpl implements ShipService {
 
         if (ship.getProdDate() != null && checkProdDate(ship)) {
             updateShip.setProdDate(ship.getProdDate());
+            updateShip.setProdYear(ship.getProdDate().getYear());
         }
 
         if (ship.getShipType() != null) {
@@ -86,42 +247,59 @@ public class ShipServiceImpl implements ShipService {
 
         updateShip.setRating(calculateRating(updateShip));
 
-        return shipRepository.saveAndFlush(updateShip);
-
+        return updateShip;
     }
 
     @Override
     public void deleteShip(String id) {
         long longId = idValidation(id);
+        shipWriteBuffer.discard(longId);
 
-        try {
-            shipRepository.deleteById(longId);
-        } catch (Exception e){
+        int deleted = shipMetrics.query("delete", () -> transactionTemplate.execute(status -> shipRepository.deleteShipById(longId)));
+        if (deleted == 0) {
             throw new ShipNotFoundException("ID Not Found In DataBase!");
         }
 
+        shipEventBus.publish(ShipEvent.deleted(longId));
     }
 
     @Override
     public Ship getShipById(String id) {
         long longId = idValidation(id);
 
+        Ship pending = shipWriteBuffer.get(longId);
+        if (pending != null) {
+            return pending;
+        }
+
         try {
-            return shipRepository.findById(longId).get();
+            return shipMetrics.query("lookup", () -> shipRepository.findById(longId)).get();
         } catch (Exception e){
             throw new ShipNotFoundException("ID Not Found In DataBase!");
         }
 
     }
 
-    private Double calculateRating(Ship ship) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(ship.getProdDate());
+    static Ship copyOf(Ship ship) {
+        Ship copy = new Ship();
+        copy.setId(ship.getId());
+        copy.setName(ship.getName());
+        copy.setPlanet(ship.getPlanet());
+        copy.setShipType(ship.getShipType());
+        copy.setProdDate(ship.getProdDate());
+        copy.setProdYear(ship.getProdYear());
+        copy.setUsed(ship.getUsed());
+        copy.setSpeed(ship.getSpeed());
+        copy.setCrewSize(ship.getCrewSize());
+        copy.setRating(ship.getRating());
+        return copy;
+    }
 
+    static Double calculateRating(Ship ship) {
         double k = ship.getUsed() == true ? 0.5d : 1d;
         double v = ship.getSpeed();
         long y0 = 3019;
-        long y1 = calendar.get(Calendar.YEAR);
+        long y1 = ship.getProdDate().getYear();
         double rating = (80 * v * k) / (y0 - y1 + 1);
         return   Math.round(rating * 100d) / 100d;
     }
@@ -146,20 +324,48 @@ public class ShipServiceImpl implements ShipService {
         };
     }
 
+    // bounds are instants, a date matches when its midnight lies within them; the years of the bounds
+    // narrow the rows through the prodYear index and the dates are only compared inside partial years
     public Specification<Ship> filterByProdDate( Long fromDate, Long toDate) {
+        LocalDate from = fromDate == null ? null : EpochDates.ceil(fromDate);
+        LocalDate to = toDate == null ? null : EpochDates.toLocalDate(toDate);
+        Specification<Ship> years = filterByProdYear(from == null ? null : from.getYear(), to == null ? null : to.getYear());
+
+        boolean wholeYears = (from == null || from.getDayOfYear() == 1)
+                && (to == null || to.equals(to.with(TemporalAdjusters.lastDayOfYear())));
+        if (wholeYears) {
+            return years;
+        }
+
+        return years.and(new Specification<Ship>() {
+            @Override
+            public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+
+                if (from == null) {
+                    return criteriaBuilder.lessThanOrEqualTo(root.get("prodDate"), to);
+                } else if (to == null) {
+                    return criteriaBuilder.greaterThanOrEqualTo(root.get("prodDate"), from);
+                }
+
+                return criteriaBuilder.between(root.get("prodDate"), from, to);
+            }
+        });
+    }
+
+    public Specification<Ship> filterByProdYear(Integer yearFrom, Integer yearTo) {
         return new Specification<Ship>() {
             @Override
             public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
 
-                if (fromDate == null && toDate == null) {
+                if (yearFrom == null && yearTo == null) {
                     return null;
-                } else if (fromDate == null) {
-                    return criteriaBuilder.lessThanOrEqualTo(root.get("prodDate"), new Date(toDate));
-                } else if (toDate == null) {
-                    return criteriaBuilder.greaterThanOrEqualTo(root.get("prodDate"), new Date(fromDate));
+                } else if (yearFrom == null) {
+                    return criteriaBuilder.lessThanOrEqualTo(root.get("prodYear"), yearTo);
+                } else if (yearTo == null) {
+                    return criteriaBuilder.greaterThanOrEqualTo(root.get("prodYear"), yearFrom);
                 }
 
-                return criteriaBuilder.between(root.get("prodDate"), new Date(fromDate), new Date(toDate));
+                return criteriaBuilder.between(root.get("prodYear"), yearFrom, yearTo);
             }
         };
     }
@@ -243,7 +449,7 @@ public class ShipServiceImpl implements ShipService {
         };
     }
 
-    private Long idValidation(String id){
+    Long idValidation(String id){
 
         try {
                 if ((Long.parseLong(id) - Double.parseDouble(id) == 0) && (Long.parseLong(id) <= 0)){
@@ -293,7 +499,7 @@ public class ShipServiceImpl implements ShipService {
 
     private boolean checkProdDate (Ship ship){
 
-        if (ship.getProdDate().getTime() >= 26192246400000L && ship.getProdDate().getTime() <= 33103209600000L){
+        if (ship.getProdDate().getYear() >= 2800 && ship.getProdDate().getYear() <= 3019){
             return true;
         } else {
             throw new BadRequestException("Wrong Product Date!");
@@ -0,0 +1,359 @@
+package com.space.service;
+
+import com.space.ServiceUnavailableException;
+import com.space.model.Ship;
+import com.space.repository.ShipRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Opt-in write-behind of ship updates ({@code cosmoport.write-behind.enabled}). Updates of the same ship
+ * are coalesced in memory into its latest state and written in batched transactions every
+ * {@code .flush-interval} ms, or as soon as {@code .batch-size} ships are pending. At most
+ * {@code .capacity} ships are held; an update of one more ship flushes on the calling thread first, and
+ * is rejected with 503 while flushes fail.
+ *
+ * <p>{@link #get} sees pending states, so a client reads its own writes by id, while lists, counts and
+ * UPDATED events only follow once the flush has committed.
+ *
+ * <p>On shutdown no new ships are buffered, but updates of ships that are still pending keep going through
+ * the buffer until the final flush has committed, so none of them is written over by an older buffered
+ * state. A failing final flush is retried {@code .shutdown-retries} times, {@code .shutdown-retry-delay} ms
+ * apart; the ships it could not write are logged as an error.
+ */
+@Component
+public class ShipWriteBuffer implements MeterBinder, InitializingBean, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShipWriteBuffer.class);
+
+    @Autowired
+    private ShipRepository shipRepository;
+
+    @Autowired
+    private ShipEventBus shipEventBus;
+
+    @Autowired
+    private ShipMetrics shipMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${cosmoport.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cosmoport.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${cosmoport.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cosmoport.write-behind.flush-interval:1000}")
+    private long flushInterval;
+
+    @Value("${cosmoport.write-behind.shutdown-retries:3}")
+    private int shutdownRetries;
+
+    @Value("${cosmoport.write-behind.shutdown-retry-delay:1000}")
+    private long shutdownRetryDelay;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    // drained but not yet committed, still visible to readers
+    private final Map<Long, Pending> flushing = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // held by updates, so once closed is set no update can still be on its way into the buffer
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private TransactionTemplate transactionTemplate;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean closing;
+    private volatile boolean closed;
+
+    @Override
+    public void afterPropertiesSet() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ship-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // graceful shutdown: no new ships are buffered and whatever is pending gets written
+    @Override
+    public void destroy() throws InterruptedException {
+        closing = true;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(flushInterval + 10_000, TimeUnit.MILLISECONDS);
+        }
+
+        boolean flushed = flushOnShutdown();
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        // updates that were already on their way in when the buffer closed
+        if (flushed) {
+            flushed = flushOnShutdown();
+        }
+
+        if (!flushed) {
+            List<Long> ids = new ArrayList<>(pending.keySet());
+            LOG.error("Write-behind shutdown gave up after {} retries, updates of ships {} were not written",
+                    shutdownRetries, ids);
+        }
+    }
+
+    private boolean flushOnShutdown() throws InterruptedException {
+        for (int retry = 0; ; retry++) {
+            flush();
+            if (pending.isEmpty()) {
+                return true;
+            }
+            if (retry == shutdownRetries) {
+                return false;
+            }
+            Thread.sleep(shutdownRetryDelay);
+        }
+    }
+
+    /**
+     * Whether an update of the ship goes through the buffer: always while it is open, and while it is closing
+     * only when the ship is still pending, since a direct write would not see the pending state.
+     */
+    public boolean isBuffering(long id) {
+        if (!enabled || closed) {
+            return false;
+        }
+        return !closing || pending.containsKey(id) || flushing.containsKey(id);
+    }
+
+    // the pending state of the ship, null when its latest state is in the database
+    public Ship get(long id) {
+        Pending ship = pending.get(id);
+        if (ship == null) {
+            ship = flushing.get(id);
+        }
+        return ship == null ? null : ShipServiceImpl.copyOf(ship.current);
+    }
+
+    /**
+     * Applies the change to the latest state of the ship, pending or else loaded, and buffers the result.
+     * Changes of the same ship are applied one at a time.
+     */
+    public Ship update(long id, Supplier<Ship> loader, UnaryOperator<Ship> change) {
+        closeLock.readLock().lock();
+        try {
+            // the last flush of the shutdown may already have started, so nothing buffered now is sure to be written
+            if (closed) {
+                throw new ServiceUnavailableException("Write-Behind Buffer Is Closed!");
+            }
+            return buffer(id, loader, change);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private Ship buffer(long id, Supplier<Ship> loader, UnaryOperator<Ship> change) {
+        Ship loaded = get(id);
+        if (loaded == null) {
+            loaded = loader.get();
+            if (pending.size() >= capacity && !pending.containsKey(id)) {
+                flush();
+                // the flush failed; holding one more ship would let the buffer grow for as long as it keeps failing
+                if (pending.size() >= capacity && !pending.containsKey(id)) {
+                    throw new ServiceUnavailableException("Write-Behind Buffer Is Full!");
+                }
+            }
+        }
+
+        Ship base = loaded;
+        Pending updated = pending.compute(id, (key, current) -> {
+            Ship previous = current != null ? current.current : base;
+            Ship changed = change.apply(ShipServiceImpl.copyOf(previous));
+            return new Pending(current != null ? current.original : ShipServiceImpl.copyOf(base), changed);
+        });
+        updates.incrementAndGet();
+
+        if (pending.size() >= batchSize && scheduler != null && !closing) {
+            scheduler.execute(this::flushQuietly);
+        }
+        return ShipServiceImpl.copyOf(updated.current);
+    }
+
+    // drops the pending state of a ship that is being deleted; waits for a flush that may be writing it
+    public void discard(long id) {
+        flushLock.lock();
+        try {
+            pending.remove(id);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // writes everything pending, one transaction per batch
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (!pending.isEmpty()) {
+                if (!flushBatch()) {
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOG.warn("Write-behind flush failed", e);
+        }
+    }
+
+    private boolean flushBatch() {
+        Iterator<Long> ids = pending.keySet().iterator();
+        while (ids.hasNext() && flushing.size() < batchSize) {
+            Long id = ids.next();
+            Pending ship = pending.get(id);
+            if (ship == null) {
+                continue;
+            }
+            // moved over without a moment in which readers see neither; a ship updated meanwhile waits for the next batch
+            flushing.put(id, ship);
+            if (!pending.remove(id, ship)) {
+                flushing.remove(id);
+            }
+        }
+
+        Map<Long, Pending> batch = new LinkedHashMap<>(flushing);
+        List<Ship> written;
+        try {
+            written = shipMetrics.query("flush", () -> transactionTemplate.execute(status -> write(batch)));
+        } catch (RuntimeException e) {
+            // the batch goes back unless newer updates took its place; those keep the original of the batch
+            failures.incrementAndGet();
+            for (Map.Entry<Long, Pending> ship : batch.entrySet()) {
+                pending.merge(ship.getKey(), ship.getValue(), (newer, older) -> new Pending(older.original, newer.current));
+            }
+            flushing.clear();
+            LOG.warn("Write-behind flush of {} ships failed, retrying later", batch.size(), e);
+            return false;
+        }
+
+        flushing.clear();
+        flushes.incrementAndGet();
+        writes.addAndGet(written.size());
+        shipMetrics.rows("flush", written.size());
+        for (Ship ship : written) {
+            shipEventBus.publish(ShipEvent.updated(batch.get(ship.getId()).original, ship));
+        }
+        return true;
+    }
+
+    // ships deleted in the meantime are no longer found and stay deleted
+    private List<Ship> write(Map<Long, Pending> batch) {
+        List<Ship> ships = new ArrayList<>();
+        for (Ship ship : shipRepository.findAllById(batch.keySet())) {
+            Ship latest = batch.get(ship.getId()).current;
+            ship.setName(latest.getName());
+            ship.setPlanet(latest.getPlanet());
+            ship.setShipType(latest.getShipType());
+            ship.setProdDate(latest.getProdDate());
+            ship.setProdYear(latest.getProdYear());
+            ship.setUsed(latest.getUsed());
+            ship.setSpeed(latest.getSpeed());
+            ship.setCrewSize(latest.getCrewSize());
+            ship.setRating(latest.getRating());
+            ships.add(ship);
+        }
+
+        List<Ship> saved = shipRepository.saveAll(ships);
+        List<Ship> written = new ArrayList<>();
+        for (Ship ship : saved) {
+            written.add(ShipServiceImpl.copyOf(ship));
+        }
+        return written;
+    }
+
+    public int getPending() {
+        return pending.size() + flushing.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ship.write.behind.pending", this, ShipWriteBuffer::getPending)
+                .description("Ships with updates not yet written")
+                .register(registry);
+        FunctionCounter.builder("ship.write.behind.updates", updates, AtomicLong::get)
+                .description("Updates accepted into the buffer")
+                .register(registry);
+        FunctionCounter.builder("ship.write.behind.writes", writes, AtomicLong::get)
+                .description("Ship rows written by flushes")
+                .register(registry);
+        FunctionCounter.builder("ship.write.behind.failures", failures, AtomicLong::get)
+                .description("Flushed batches that failed and were requeued")
+                .register(registry);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("pending", getPending());
+        statistics.put("updates", updates.get());
+        statistics.put("writes", writes.get());
+        statistics.put("flushes", flushes.get());
+        statistics.put("failures", failures.get());
+        return statistics;
+    }
+
+    // state of a ship before its first buffered update and after its latest one
+    private static class Pending {
+
+        private final Ship original;
+        private final Ship current;
+
+        Pending(Ship original, Ship current) {
+            this.original = original;
+            this.current = current;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.space.service;
+
+import java.util.List;
+import java.util.Map;
+
+public class SlowRequest {
+
+    private final long timestamp;
+    private final String method;
+    private final String uri;
+    private final Map<String, String[]> params;
+    private final String handler;
+    private final int status;
+    private final double totalMillis;
+    private final double dbMillis;
+    private final long rows;
+    private final boolean captured;
+    private final List<Statement> statements;
+
+    // dbMillis, rows and statements are only known for a request whose statements were captured
+    public SlowRequest(long timestamp, String method, String uri, Map<String, String[]> params, String handler,
+                       int status, double totalMillis, double dbMillis, long rows, boolean captured,
+                       List<Statement> statements) {
+        this.timestamp = timestamp;
+        this.method = method;
+        this.uri = uri;
+        this.params = params;
+        this.handler = handler;
+        this.status = status;
+        this.totalMillis = totalMillis;
+        this.dbMillis = dbMillis;
+        this.rows = rows;
+        this.captured = captured;
+        this.statements = statements;
+    }
+
+    public static class Statement {
+
+        private final String sql;
+        private final List<Object> binds;
+        private final double millis;
+        private final long rows;
+        private List<Map<String, Object>> plan;
+
+        public Statement(String sql, List<Object> binds, double millis, long rows) {
+            this.sql = sql;
+            this.binds = binds;
+            this.millis = millis;
+            this.rows = rows;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Object> getBinds() {
+            return binds;
+        }
+
+        public double getMillis() {
+            return millis;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public List<Map<String, Object>> getPlan() {
+            return plan;
+        }
+
+        void setPlan(List<Map<String, Object>> plan) {
+            this.plan = plan;
+        }
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public Map<String, String[]> getParams() {
+        return params;
+    }
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public double getDbMillis() {
+        return dbMillis;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public boolean isCaptured() {
+        return captured;
+    }
+
+    public List<Statement> getStatements() {
+        return statements;
+    }
+}
@@ -0,0 +1,153 @@
+package com.space.service;
+
+import com.space.config.CapturedStatement;
+import com.space.config.QueryCapture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded ring buffer of the slowest recent requests. Every request is timed and by default has its
+ * statements captured, which wraps its connection, statements and result sets in proxies. Deployments
+ * that cannot afford the proxies on every request may capture only a
+ * {@code cosmoport.slow-requests.sample-rate} share of them; a slow request outside the sample is then
+ * recorded without its SQL. A request under the threshold is dropped as soon as it completes.
+ */
+@Component
+public class SlowRequestLog {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SlowRequestLog.class);
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final boolean explain;
+    private final SlowRequest[] ring;
+    private int next;
+    private long recorded;
+
+    public SlowRequestLog(@Value("${cosmoport.slow-requests.enabled:true}") boolean enabled,
+                          @Value("${cosmoport.slow-requests.threshold:500}") long thresholdMillis,
+                          @Value("${cosmoport.slow-requests.sample-rate:1}") double sampleRate,
+                          @Value("${cosmoport.slow-requests.capacity:100}") int capacity,
+                          @Value("${cosmoport.slow-requests.explain:false}") boolean explain) {
+        this.enabled = enabled;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.sampleRate = sampleRate;
+        this.explain = explain;
+        this.ring = new SlowRequest[capacity];
+    }
+
+    // the capture of a sampled request, null when the request's statements are not captured
+    public QueryCapture begin() {
+        if (!enabled || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return null;
+        }
+
+        QueryCapture capture = new QueryCapture(QueryCapture.current());
+        QueryCapture.attach(capture);
+        return capture;
+    }
+
+    public void finish(QueryCapture capture, long totalNanos, String method, String uri,
+                       Map<String, String[]> params, String handler, int status) {
+        if (capture != null) {
+            QueryCapture.attach(capture.getParent());
+        }
+
+        if (!enabled || totalNanos < thresholdNanos) {
+            return;
+        }
+
+        List<SlowRequest.Statement> statements = new ArrayList<>();
+        if (capture != null) {
+            for (CapturedStatement captured : capture.getStatements()) {
+                SlowRequest.Statement statement = new SlowRequest.Statement(captured.getSql(), captured.getBinds(),
+                        millis(captured.getNanos()), captured.getRows());
+                if (explain) {
+                    statement.setPlan(explain(captured));
+                }
+                statements.add(statement);
+            }
+        }
+
+        SlowRequest slowRequest = new SlowRequest(System.currentTimeMillis(), method, uri, new LinkedHashMap<>(params),
+                handler, status, millis(totalNanos), capture == null ? 0 : millis(capture.getDbNanos()),
+                capture == null ? 0 : capture.getRows(), capture != null, statements);
+
+        if (capture == null) {
+            LOG.warn("Slow request {} {} took {} ms, its statements were not sampled", method, uri, slowRequest.getTotalMillis());
+        } else {
+            LOG.warn("Slow request {} {} took {} ms, {} ms in the database", method, uri,
+                    slowRequest.getTotalMillis(), slowRequest.getDbMillis());
+        }
+
+        synchronized (ring) {
+            ring[next] = slowRequest;
+            next = (next + 1) % ring.length;
+            recorded++;
+        }
+    }
+
+    // newest first
+    public List<SlowRequest> getSlowRequests() {
+        List<SlowRequest> slowRequests = new ArrayList<>();
+        synchronized (ring) {
+            for (int i = 1; i <= ring.length; i++) {
+                SlowRequest slowRequest = ring[(next - i + ring.length) % ring.length];
+                if (slowRequest != null) {
+                    slowRequests.add(slowRequest);
+                }
+            }
+        }
+        return slowRequests;
+    }
+
+    public long getRecorded() {
+        synchronized (ring) {
+            return recorded;
+        }
+    }
+
+    public void clear() {
+        synchronized (ring) {
+            Arrays.fill(ring, null);
+            next = 0;
+        }
+    }
+
+    private List<Map<String, Object>> explain(CapturedStatement statement) {
+        if (!statement.getSql().trim().toLowerCase().startsWith("select")) {
+            return Collections.emptyList();
+        }
+
+        try {
+            return new JdbcTemplate(dataSource).queryForList("EXPLAIN " + statement.getSql(),
+                    statement.getBinds().toArray());
+        } catch (DataAccessException e) {
+            LOG.debug("Could not explain {}", statement.getSql(), e);
+            return Collections.singletonList(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000d;
+    }
+}
@@ -0,0 +1,17 @@
+-- RANGE partitioning of ship by production era, fifty years of prodYear per partition. Date filters
+-- always bound prodYear as well, so both they and the year filters prune on it. MySQL wants the
+-- partitioning column in every unique key, so it joins the primary key.
+
+ALTER TABLE ship
+    MODIFY prodYear SMALLINT NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, prodYear);
+
+ALTER TABLE ship
+    PARTITION BY RANGE (prodYear) (
+        PARTITION p2800 VALUES LESS THAN (2850),
+        PARTITION p2850 VALUES LESS THAN (2900),
+        PARTITION p2900 VALUES LESS THAN (2950),
+        PARTITION p2950 VALUES LESS THAN (3000),
+        PARTITION p3000 VALUES LESS THAN MAXVALUE
+        );
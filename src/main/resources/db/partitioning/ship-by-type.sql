@@ -0,0 +1,14 @@
+-- LIST partitioning of ship by shipType, one partition per type. MySQL wants the partitioning column
+-- in every unique key, so it joins the primary key; id alone stays unique through ship_sequence.
+
+ALTER TABLE ship
+    MODIFY shipType VARCHAR(9) NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, shipType);
+
+ALTER TABLE ship
+    PARTITION BY LIST COLUMNS (shipType) (
+        PARTITION p_transport VALUES IN ('TRANSPORT'),
+        PARTITION p_military VALUES IN ('MILITARY'),
+        PARTITION p_merchant VALUES IN ('MERCHANT')
+        );
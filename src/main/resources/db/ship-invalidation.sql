@@ -0,0 +1,14 @@
+-- Invalidations of ship changes for the other nodes of the fleet (DatabaseInvalidationTransport).
+-- Safe to run on every start; rows are pruned by the nodes once every node has had time to read them.
+
+CREATE TABLE IF NOT EXISTS ship_invalidation
+(
+    id      BIGINT(20)  NOT NULL AUTO_INCREMENT,
+    node    VARCHAR(64) NOT NULL,
+    type    VARCHAR(16) NOT NULL,
+    ship_id BIGINT(20)  NULL,
+    created BIGINT(20)  NOT NULL,
+    PRIMARY KEY (id)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARACTER SET = utf8;
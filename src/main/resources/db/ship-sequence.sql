@@ -0,0 +1,20 @@
+-- Block-wise id source of ship inserts (ShipIdGenerator, ShipIdAllocator). Safe to run on every start:
+-- next_val, the last id reserved so far, is only ever raised to the largest id the ship table holds.
+
+CREATE TABLE IF NOT EXISTS ship_sequence
+(
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val      BIGINT(20)   NULL,
+    PRIMARY KEY (sequence_name)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARACTER SET = utf8;
+
+INSERT INTO ship_sequence (sequence_name, next_val)
+SELECT 'ship', 0
+FROM DUAL
+WHERE NOT EXISTS(SELECT 1 FROM ship_sequence WHERE sequence_name = 'ship');
+
+UPDATE ship_sequence
+SET next_val = GREATEST(COALESCE(next_val, 0), (SELECT COALESCE(MAX(id), 0) FROM ship))
+WHERE sequence_name = 'ship';
@@ -1,139 +1,340 @@
+let fleetEvents = null;
+let fleetEventsSuffix = null;
+let fleetRefresh = null;
+let fleetRefreshTimer = null;
+let fleetSearch = null;
+let searchTimer = null;
+let shipRowTemplate = null;
+let fleetScroll = null;
+
+// rows appended per animation frame, so long pages never block the tab for long
+const RENDER_CHUNK = 200;
+// ships per cursor request in scroll mode
+const SCROLL_CHUNK = 100;
+// rows materialized above and below the visible part of the table
+const SCROLL_OVERSCAN = 10;
+// the next chunk is requested once fewer loaded rows than this are left below the viewport
+const SCROLL_PREFETCH = 60;
+
 function loadContent(root, suffix, currentPage) {
+    watchFleet(root, suffix, function () {
+        loadContent(root, suffix, currentPage);
+    });
+    setScrollMode(false);
+
+    // a newer search makes the one in flight pointless
+    if (fleetSearch !== null) {
+        fleetSearch.abort();
+    }
+    let search = new AbortController();
+    fleetSearch = search;
+
+    return Promise.all([
+        Get(root + "/rest/ships" + suffix, search.signal).then(function (response) {
+            return response.json();
+        }),
+        Get(root + "/rest/ships/count" + suffix, search.signal).then(function (response) {
+            return response.text();
+        })
+    ]).then(function (results) {
+        let objects = results[0];
+        let shipsCount = results[1];
+        document.getElementById("count").innerText = "Ships found: " + shipsCount;
+        createPaging(document.getElementById("limit").value, shipsCount, currentPage);
+        renderShips(root, objects, search.signal);
+        window.scrollTo(500, 100);
+    }).catch(function (error) {
+        if (error.name !== "AbortError") {
+            console.log(error);
+        }
+    });
+}
 
-    let objects = JSON.parse(Get(root + "/rest/ships" + suffix).responseText);
-    let shipsCount = Get(root + "/rest/ships/count" + suffix).responseText;
-    document.getElementById("count").innerText = "Ships found: " + shipsCount;
+function renderShips(root, objects, signal) {
     let table = document.getElementById("mainTable");
-    table.innerHTML = "";
-    createPaging(document.getElementById("limit").value, shipsCount, currentPage);
+    bindTable(root, table);
 
-    for (let i = 0; i < objects.length; i++) {
+    let renderChunk = function (from) {
+        if (signal.aborted) {
+            return;
+        }
+        let fragment = document.createDocumentFragment();
+        let to = Math.min(from + RENDER_CHUNK, objects.length);
+        for (let i = from; i < to; i++) {
+            fragment.appendChild(shipRow(objects[i]));
+        }
+        if (from === 0) {
+            table.textContent = "";
+        }
+        table.appendChild(fragment);
+        if (to < objects.length) {
+            requestAnimationFrame(function () {
+                renderChunk(to);
+            });
+        }
+    };
 
+    if (objects.length === 0) {
+        table.textContent = "";
+    } else {
+        renderChunk(0);
+    }
+}
+
+function shipRow(ship) {
+    if (shipRowTemplate === null) {
         let tr = document.createElement("tr");
         let th = document.createElement("th");
         th.setAttribute("scope", "row");
-        th.appendChild(document.createTextNode(objects[i].id));
         tr.appendChild(th);
-        let td1 = document.createElement("td");
-        td1.appendChild(document.createTextNode(objects[i].name));
-        tr.appendChild(td1);
-        let td2 = document.createElement("td");
-        td2.appendChild(document.createTextNode(objects[i].planet));
-        tr.appendChild(td2);
-        let td3 = document.createElement("td");
-        let shipType = objects[i].shipType.charAt(0).toUpperCase() + objects[i].shipType.slice(1).toLowerCase();
-        td3.appendChild(document.createTextNode(shipType));
-        tr.appendChild(td3);
-        let td4 = document.createElement("td");
-        let date = new Date();
-        date.setTime(objects[i].prodDate);
-        td4.appendChild(document.createTextNode(date.getFullYear().toString()));
-        tr.appendChild(td4);
-        let preOwned;
-        if (objects[i].isUsed) {
-            preOwned = "pre-owned";
-        } else {
-            preOwned = "new";
+        for (let i = 0; i < 8; i++) {
+            tr.appendChild(document.createElement("td"));
         }
-        let td5 = document.createElement("td");
-        td5.appendChild(document.createTextNode(preOwned));
-        tr.appendChild(td5);
-        let td6 = document.createElement("td");
-        td6.appendChild(document.createTextNode(objects[i].speed));
-        tr.appendChild(td6);
-        let td7 = document.createElement("td");
-        td7.appendChild(document.createTextNode(objects[i].crewSize));
-        tr.appendChild(td7);
-        let td8 = document.createElement("td");
-        td8.appendChild(document.createTextNode(objects[i].rating));
-        tr.appendChild(td8);
         let warButton = document.createElement("button");
         warButton.setAttribute("type", "button");
         warButton.setAttribute("class", "btn btn-warning btn-sm");
+        warButton.setAttribute("data-action", "edit");
         warButton.appendChild(document.createTextNode("Edit"));
-        warButton.addEventListener("click", function () {
-            editButtonClick(root, tr, objects[i].id)
-        });
+        let td9 = document.createElement("td");
+        td9.appendChild(warButton);
+        tr.appendChild(td9);
         let dangerButton = document.createElement("button");
         dangerButton.setAttribute("type", "button");
         dangerButton.setAttribute("class", "btn btn-danger btn-sm");
+        dangerButton.setAttribute("data-action", "delete");
         dangerButton.appendChild(document.createTextNode("Delete"));
-        dangerButton.addEventListener("click", function () {
-            processDelete(root, objects[i].id)
-        });
-        let td9 = document.createElement("td");
-        td9.appendChild(warButton);
-        tr.appendChild(td9);
         let td10 = document.createElement("td");
         td10.appendChild(dangerButton);
         tr.appendChild(td10);
-        table.appendChild(tr);
+        shipRowTemplate = tr;
+    }
+
+    let tr = shipRowTemplate.cloneNode(true);
+    let cells = tr.children;
+    tr.setAttribute("data-id", ship.id);
+    cells[0].textContent = ship.id;
+    cells[1].textContent = ship.name;
+    cells[2].textContent = ship.planet;
+    cells[3].textContent = ship.shipType.charAt(0).toUpperCase() + ship.shipType.slice(1).toLowerCase();
+    let date = new Date();
+    date.setTime(ship.prodDate);
+    cells[4].textContent = date.getFullYear().toString();
+    cells[5].textContent = ship.isUsed ? "pre-owned" : "new";
+    cells[6].textContent = ship.speed;
+    cells[7].textContent = ship.crewSize;
+    cells[8].textContent = ship.rating;
+    return tr;
+}
+
+// one listener for every row button instead of two closures per row
+function bindTable(root, table) {
+    if (table.getAttribute("data-bound") !== null) {
+        return;
     }
-    window.scrollTo(500, 100);
+    table.setAttribute("data-bound", "");
+    table.addEventListener("click", function (event) {
+        let button = event.target.closest("button[data-action]");
+        if (button === null) {
+            return;
+        }
+        let tr = button.closest("tr");
+        let id = +tr.getAttribute("data-id");
+        if (button.getAttribute("data-action") === "edit") {
+            editButtonClick(root, tr, id);
+        } else if (button.getAttribute("data-action") === "delete") {
+            processDelete(root, id);
+        }
+    });
 }
 
-function Get(requestUrl) {
-    let Httpreq = new XMLHttpRequest(); // a new request
-    Httpreq.open("GET", requestUrl, false);
-    Httpreq.send(null);
-    if (Httpreq.status === 400) {
-        $('#error-text').text("Bad request to GET " + requestUrl);
-        $('#myModal').modal('show');
+// Infinite scroll: ships are fetched slice by slice through the keyset cursor of /rest/ships/scroll
+// and only the rows in view are in the DOM, spacer rows stand in for the rest.
+function loadScroll(root, suffix) {
+    watchFleet(root, suffix, function () {
+        loadScroll(root, suffix);
+    });
+
+    if (fleetSearch !== null) {
+        fleetSearch.abort();
+    }
+    let search = new AbortController();
+    fleetSearch = search;
+
+    let scroll = {root: root, suffix: suffix, ships: [], next: null, done: false, loading: null,
+        signal: search.signal, rowHeight: 0};
+    fleetScroll = scroll;
+    setScrollMode(true);
+    document.getElementById("tableViewport").scrollTop = 0;
+    document.getElementById("pagging-bar").textContent = "";
+
+    Get(root + "/rest/ships/count" + suffix, search.signal).then(function (response) {
+        return response.text();
+    }).then(function (shipsCount) {
+        document.getElementById("count").innerText = "Ships found: " + shipsCount;
+    }).catch(function (error) {
+        if (error.name !== "AbortError") {
+            console.log(error);
+        }
+    });
+    return fetchSlice(scroll);
+}
+
+function fetchSlice(scroll) {
+    if (scroll.loading !== null || scroll.done) {
+        return scroll.loading;
+    }
+    let url = scroll.root + "/rest/ships/scroll" + scroll.suffix + "&limit=" + SCROLL_CHUNK;
+    if (scroll.next !== null) {
+        url += "&cursor=" + encodeURIComponent(scroll.next);
+    }
+    scroll.loading = Get(url, scroll.signal).then(function (response) {
+        return response.json();
+    }).then(function (slice) {
+        scroll.ships = scroll.ships.concat(slice.ships);
+        scroll.next = slice.next;
+        scroll.done = slice.next === null;
+        scroll.loading = null;
+        renderWindow(scroll);
+    }).catch(function (error) {
+        scroll.loading = null;
+        if (error.name !== "AbortError") {
+            console.log(error);
+        }
+    });
+    return scroll.loading;
+}
+
+function renderWindow(scroll) {
+    if (scroll !== fleetScroll || scroll.signal.aborted) {
+        return;
+    }
+    let viewport = document.getElementById("tableViewport");
+    let table = document.getElementById("mainTable");
+    bindTable(scroll.root, table);
+
+    let rowHeight = scroll.rowHeight || 49;
+    let first = Math.max(0, Math.floor(viewport.scrollTop / rowHeight) - SCROLL_OVERSCAN);
+    let last = Math.min(scroll.ships.length,
+        Math.ceil((viewport.scrollTop + viewport.clientHeight) / rowHeight) + SCROLL_OVERSCAN);
+    first = Math.min(first, last);
+
+    let fragment = document.createDocumentFragment();
+    fragment.appendChild(spacerRow(first * rowHeight));
+    for (let i = first; i < last; i++) {
+        fragment.appendChild(shipRow(scroll.ships[i]));
+    }
+    fragment.appendChild(spacerRow((scroll.ships.length - last) * rowHeight));
+    table.textContent = "";
+    table.appendChild(fragment);
+
+    if (scroll.rowHeight === 0 && last > first) {
+        scroll.rowHeight = table.children[1].offsetHeight || rowHeight;
     }
-    if (Httpreq.status === 404) {
-        $('#error-text').text("Not found GET " + requestUrl);
-        $('#myModal').modal('show');
+    if (scroll.ships.length - last < SCROLL_PREFETCH) {
+        fetchSlice(scroll);
     }
-    return Httpreq;
+}
+
+function spacerRow(height) {
+    let tr = document.createElement("tr");
+    let td = document.createElement("td");
+    td.setAttribute("colspan", "11");
+    td.setAttribute("style", "padding: 0; border: 0; height: " + height + "px");
+    tr.appendChild(td);
+    return tr;
+}
+
+function setScrollMode(enabled) {
+    let viewport = document.getElementById("tableViewport");
+    if (enabled) {
+        viewport.setAttribute("style", "height: 70vh; overflow-y: auto");
+    } else {
+        fleetScroll = null;
+        viewport.removeAttribute("style");
+    }
+    if (viewport.getAttribute("data-bound") === null) {
+        viewport.setAttribute("data-bound", "");
+        let pending = false;
+        viewport.addEventListener("scroll", function () {
+            if (fleetScroll === null || pending) {
+                return;
+            }
+            pending = true;
+            requestAnimationFrame(function () {
+                pending = false;
+                if (fleetScroll !== null) {
+                    renderWindow(fleetScroll);
+                }
+            });
+        });
+    }
+}
+
+function scheduleSearch(root) {
+    clearTimeout(searchTimer);
+    searchTimer = setTimeout(function () {
+        processSearch(root, 1);
+    }, 300);
+}
+
+function watchFleet(root, suffix, refresh) {
+    if (typeof EventSource === "undefined") {
+        return;
+    }
+    fleetRefresh = refresh;
+    if (fleetEvents !== null && fleetEventsSuffix === suffix) {
+        return;
+    }
+    if (fleetEvents !== null) {
+        fleetEvents.close();
+    }
+    fleetEventsSuffix = suffix;
+    fleetEvents = new EventSource(root + "/rest/ships/events" + suffix);
+    ["created", "updated", "deleted", "resync"].forEach(function (type) {
+        fleetEvents.addEventListener(type, function () {
+            clearTimeout(fleetRefreshTimer);
+            fleetRefreshTimer = setTimeout(fleetRefresh, 300);
+        });
+    });
+}
+
+function Get(requestUrl, signal) {
+    return send("GET", requestUrl, null, signal);
 }
 
 function post(requestUrl, body) {
-    let Httpreq = new XMLHttpRequest(); // a new request
-    Httpreq.open("POST", requestUrl, false);
-    Httpreq.setRequestHeader("Content-type", "application/json;charset=UTF-8");
-    Httpreq.send(body);
-    if (Httpreq.status === 400) {
-        $('#error-text').text("Bad request to POST " + requestUrl);
-        $('#myModal').modal('show');
-    }
-    if (Httpreq.status === 404) {
-        $('#error-text').text("Not found POST " + requestUrl);
-        $('#myModal').modal('show');
-    }
-    return Httpreq;
+    return send("POST", requestUrl, body);
 }
 
 function Delete(requestUrl) {
-    let Httpreq = new XMLHttpRequest(); // a new request
-    Httpreq.open("DELETE", requestUrl, false);
-    Httpreq.send(null);
-    console.log(Httpreq.status);
-    if (Httpreq.status === 400) {
-        $('#error-text').text("Bad request to DELETE " + requestUrl);
-        $('#myModal').modal('show');
-    }
-    if (Httpreq.status === 404) {
-        $('#error-text').text("Not found DELETE " + requestUrl);
-        $('#myModal').modal('show');
-    }
-    return Httpreq;
+    return send("DELETE", requestUrl, null);
+}
+
+function send(method, requestUrl, body, signal) {
+    let init = {method: method, signal: signal};
+    if (body !== null) {
+        init.headers = {"Content-type": "application/json;charset=UTF-8"};
+        init.body = body;
+    }
+    return fetch(requestUrl, init).then(function (response) {
+        if (response.status === 400) {
+            $('#error-text').text("Bad request to " + method + " " + requestUrl);
+            $('#myModal').modal('show');
+        }
+        if (response.status === 404) {
+            $('#error-text').text("Not found " + method + " " + requestUrl);
+            $('#myModal').modal('show');
+        }
+        return response;
+    });
 }
 
 function processSearch(root, currentPage) {
+    clearTimeout(searchTimer);
     let name = document.getElementById("inputName").value;
     let planet = document.getElementById("inputPlanet").value;
-    let dateAfter = new Date();
-    let valueAfter = +document.getElementById("inputProdYearAfter").value;
-    let yearAfter = dateAfter.setFullYear(+document.getElementById("inputProdYearAfter").value);
-    if (valueAfter === 0) {
-        yearAfter = "";
-    }
-    let dateBefore = new Date();
-    let valueBefore = +document.getElementById("inputProdYearBefore").value;
-    let yearBefore = dateBefore.setFullYear(+document.getElementById("inputProdYearBefore").value);
-    if (valueBefore === 0) {
-        yearBefore = "";
-    }
+    let yearAfter = +document.getElementById("inputProdYearAfter").value;
+    let yearBefore = +document.getElementById("inputProdYearBefore").value;
     let crewSizeMin = document.getElementById("inputCrewSizeMin").value;
     let crewSizeMax = document.getElementById("inputCrewSizeMax").value;
     let speedMin = document.getElementById("inputSpeedMin").value;
@@ -159,11 +360,11 @@ function processSearch(root, currentPage) {
     if (shipType !== "Any") {
         sufix += "&shipType=" + shipType.toUpperCase();
     }
-    if (yearAfter !== "") {
-        sufix += "&after=" + yearAfter;
+    if (yearAfter !== 0) {
+        sufix += "&minYear=" + yearAfter;
     }
-    if (yearBefore !== "") {
-        sufix += "&before=" + yearBefore;
+    if (yearBefore !== 0) {
+        sufix += "&maxYear=" + yearBefore;
     }
     if (isUsed !== null) {
         sufix += "&isUsed=" + isUsed;
@@ -187,21 +388,25 @@ function processSearch(root, currentPage) {
         sufix += "&maxRating=" + ratingMax;
     }
 
-    sufix += "&pageNumber=" + (+currentPage - 1);
-    sufix += "&pageSize=" + +limit;
-
-    console.log(limit);
-
     if (order === "Prod year") {
         order = "date";
     }
+    if (limit === "scroll") {
+        sufix += "&order=" + order.toUpperCase();
+        loadScroll(root, sufix);
+        return;
+    }
+
+    sufix += "&pageNumber=" + (+currentPage - 1);
+    sufix += "&pageSize=" + +limit;
     sufix += "&order=" + order.toUpperCase();
     loadContent(root, sufix, currentPage);
 }
 
 function createPaging(shipsInPage, shipsSummary, currentPage) {
     let paggingBar = document.getElementById("pagging-bar");
-    paggingBar.innerHTML = "";
+    let fragment = document.createDocumentFragment();
+    let root = document.getElementById("root").getAttribute("about");
     let pagesCount = shipsSummary / shipsInPage;
     if (pagesCount > 1) {
 
@@ -215,21 +420,29 @@ function createPaging(shipsInPage, shipsSummary, currentPage) {
             let a = document.createElement("a");
             a.setAttribute("class", "page-link");
             a.setAttribute("href", "#");
-            let root = document.getElementById("root").getAttribute("about");
             a.setAttribute("onclick", "processSearch('" + root + "', " + (i + 1) + ")");
             a.appendChild(document.createTextNode(i + 1));
             li.appendChild(a);
-            paggingBar.appendChild(li);
+            fragment.appendChild(li);
         }
     }
+    paggingBar.textContent = "";
+    paggingBar.appendChild(fragment);
 }
 
 function editButtonClick(root, element, id) {
-    let objectToUpdate = JSON.parse(Get(root + "/rest/ships/" + id).responseText);
     if (document.body.contains(document.getElementById("update" + id))) {
         document.getElementById("update" + id).remove();
         return;
     }
+    Get(root + "/rest/ships/" + id).then(function (response) {
+        return response.json();
+    }).then(function (objectToUpdate) {
+        renderEditRow(root, element, objectToUpdate);
+    });
+}
+
+function renderEditRow(root, element, objectToUpdate) {
     let tr = document.createElement("tr");
     tr.setAttribute("id", "update" + objectToUpdate.id);
 
@@ -377,8 +590,9 @@ function sendUpdate(root, id) {
     body.speed = document.getElementById("updateSpeed" + id).value;
     body.crewSize = document.getElementById("updateCrewSize" + id).value;
 
-    post(root + "rest/ships/" + id, JSON.stringify(body));
-    loadContent(root, "", 1);
+    post(root + "rest/ships/" + id, JSON.stringify(body)).then(function () {
+        loadContent(root, "", 1);
+    });
 }
 
 function clickCreate() {
@@ -406,27 +620,29 @@ function processCreate(root) {
     body.speed = document.getElementById("inputSpeedNew").value;
     body.crewSize = document.getElementById("inputCrewSizeNew").value;
 
-    let response = post(root + "rest/ships/", JSON.stringify(body));
-    if (response.status === 200) {
-        document.getElementById("inputNameNew").value = "";
-        document.getElementById("inputPlanetNew").value = "";
-        document.getElementById("inputShipTypeNew").value = "Transport";
-        document.getElementById("inputProdYearNew").value = "";
-        if (document.getElementById("inlineRadioNew2").checked) {
-            document.getElementById("inlineRadioNew2").checked = false;
-            document.getElementById("inlineRadioNew1").checked = true;
-        }
-        document.getElementById("inputSpeedNew").value = "";
-        document.getElementById("inputCrewSizeNew").value = "";
+    post(root + "rest/ships/", JSON.stringify(body)).then(function (response) {
+        if (response.status === 200) {
+            document.getElementById("inputNameNew").value = "";
+            document.getElementById("inputPlanetNew").value = "";
+            document.getElementById("inputShipTypeNew").value = "Transport";
+            document.getElementById("inputProdYearNew").value = "";
+            if (document.getElementById("inlineRadioNew2").checked) {
+                document.getElementById("inlineRadioNew2").checked = false;
+                document.getElementById("inlineRadioNew1").checked = true;
+            }
+            document.getElementById("inputSpeedNew").value = "";
+            document.getElementById("inputCrewSizeNew").value = "";
 
-    }
+        }
 
-    processSearch(root, 1);
+        processSearch(root, 1);
+    });
 }
 
 function processDelete(root, id) {
-    Delete(root + "rest/ships/" + id);
-    processSearch(root, 1);
+    Delete(root + "rest/ships/" + id).then(function () {
+        processSearch(root, 1);
+    });
 }
 
     
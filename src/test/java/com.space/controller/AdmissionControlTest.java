@@ -0,0 +1,212 @@
+package com.space.controller;
+
+import com.space.ServiceUnavailableException;
+import com.space.config.DataSourceConfig;
+import com.space.config.MyWebAppInit;
+import com.space.config.TimedDataSource;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Admission control with a budget of three requests per client and a single list request at a time.
+ * Tests that are not about the client's identity tell clients apart by a known API key.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {"cosmoport.admission.enabled=true", "cosmoport.admission.rate=0.01",
+        "cosmoport.admission.burst=3", "cosmoport.admission.list.concurrency=1",
+        "cosmoport.admission.api-keys=page-size, dashboard, other, concurrency"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class AdmissionControlTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AdmissionInterceptor admissionInterceptor;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void pageSizeOverLimitTest() throws Exception {
+        mockMvc.perform(get("/rest/ships?pageSize=1000")
+                .header("X-API-Key", "page-size")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships?pageSize=100")
+                .header("X-API-Key", "page-size")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+    }
+
+    //test2
+    @Test
+    public void rateLimitPerClientTest() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            count("dashboard").andExpect(status().isOk());
+        }
+
+        count("dashboard")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        count("other").andExpect(status().isOk());
+    }
+
+    //test3
+    @Test
+    public void concurrentListRequestsOverLimitTest() throws Exception {
+        // a list request of another client that is still running
+        MockHttpServletRequest running = new MockHttpServletRequest("GET", "/rest/ships");
+        running.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/rest/ships");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        admissionInterceptor.preHandle(running, response, null);
+
+        try {
+            mockMvc.perform(get("/rest/ships")
+                    .header("X-API-Key", "concurrency")
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+            count("concurrency").andExpect(status().isOk());
+        } finally {
+            admissionInterceptor.afterCompletion(running, response, null, null);
+        }
+
+        mockMvc.perform(get("/rest/ships")
+                .header("X-API-Key", "concurrency")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+    }
+
+    //test4
+    @Test
+    public void unknownKeysShareAddressBudgetTest() throws Exception {
+        int clients = clients();
+        for (int i = 0; i < 3; i++) {
+            count("rotated-" + i, "192.0.2.1").andExpect(status().isOk());
+        }
+
+        count("rotated-3", "192.0.2.1").andExpect(status().isTooManyRequests());
+        count("rotated-4", "192.0.2.2").andExpect(status().isOk());
+        assertTrue("Неизвестные ключи не должны создавать отдельные лимиты.", clients() - clients == 2);
+    }
+
+    //test5
+    @Test
+    public void authenticatedUserHasOwnBudgetTest() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            count("user", "192.0.2.3", "captain").andExpect(status().isOk());
+        }
+
+        count("user", "192.0.2.3", "captain").andExpect(status().isTooManyRequests());
+        count("user", "192.0.2.3", "navigator").andExpect(status().isOk());
+        count("user", "192.0.2.3", null).andExpect(status().isOk());
+    }
+
+    //test6
+    @Test
+    public void listIsShedWhilePoolIsExhaustedTest() throws Exception {
+        MockEnvironment environment = new MockEnvironment().withProperty("cosmoport.db.pool.size", "1");
+        try (HikariDataSource pool = DataSourceConfig.pooled("admission", DataSourceConfig.embedded("admission"), environment)) {
+            TimedDataSource dataSource = new TimedDataSource(pool, new SimpleMeterRegistry());
+            AdmissionInterceptor interceptor = new AdmissionInterceptor(true, 1000, 1000, "X-API-Key", new String[0],
+                    20, 8, 8, 32, 8, dataSource, new SimpleMeterRegistry());
+
+            // a second caller queues for the only connection until the first one gives it back
+            Thread waiting;
+            try (Connection held = dataSource.getConnection()) {
+                waiting = new Thread(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        connection.isValid(1);
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                waiting.start();
+                Thread.sleep(300);
+            }
+            waiting.join(5000);
+            assertTrue("Ожидание свободного соединения пула должно учитываться.", interceptor.getPoolWait() > 20);
+
+            try {
+                interceptor.preHandle(shipsRequest("/rest/ships"), new MockHttpServletResponse(), null);
+                assertTrue("Список должен отклоняться, пока соединений не хватает.", false);
+            } catch (ServiceUnavailableException e) {
+                assertTrue("Отклонённый список не должен занимать разрешение.", true);
+            }
+            assertTrue("Поиск должен приниматься, пока соединений не хватает.",
+                    interceptor.preHandle(shipsRequest("/rest/ships/{id}"), new MockHttpServletResponse(), null));
+        }
+    }
+
+    private static MockHttpServletRequest shipsRequest(String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+
+    private ResultActions count(String key, String address) throws Exception {
+        return count(key, address, null);
+    }
+
+    private ResultActions count(String key, String address, String user) throws Exception {
+        return mockMvc.perform(get("/rest/ships/count")
+                .header("X-API-Key", key)
+                .with(request -> {
+                    request.setRemoteAddr(address);
+                    request.setUserPrincipal(user == null ? null : () -> user);
+                    return request;
+                })
+                .accept(MediaType.APPLICATION_JSON_UTF8));
+    }
+
+    private int clients() {
+        return (Integer) admissionInterceptor.getStatistics().get("clients");
+    }
+
+    private ResultActions count(String client) throws Exception {
+        return mockMvc.perform(get("/rest/ships/count")
+                .header("X-API-Key", client)
+                .accept(MediaType.APPLICATION_JSON_UTF8));
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
@@ -0,0 +1,278 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The ship API under the {@code async} profile, where requests are answered from the bulkheads' executor.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@ActiveProfiles("async")
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class AsyncShipControllerTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void getShipsTest() throws Exception {
+        String content = async(get("/rest/ships?pageSize=5&order=SPEED")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<ShipInfoTest> actual = mapper.readValue(content, typeReference);
+        assertTrue("Асинхронный список должен возвращать страницу заданного размера.", actual.size() == 5);
+
+        String count = async(get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Асинхронный подсчёт должен возвращать число всех кораблей.", Integer.parseInt(count) == 40);
+    }
+
+    //test2
+    @Test
+    public void invalidArgumentsAreRejectedBeforeDispatchTest() throws Exception {
+        mockMvc.perform(get("/rest/ships?pageSize=1000")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships/scroll?limit=0")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest());
+    }
+
+    //test3
+    @Test
+    public void errorsOfServiceTest() throws Exception {
+        async(get("/rest/ships/0")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+        async(get("/rest/ships/410")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound());
+    }
+
+    //test4
+    @Test
+    public void createUpdateDeleteTest() throws Exception {
+        async(post("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        async(post("/rest/ships/41")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Async\"}"))
+                .andExpect(status().isOk());
+
+        String content = async(get("/rest/ships/41")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Изменение корабля должно сохраняться.", mapper.readValue(content, ShipInfoTest.class).name.equals("Async"));
+
+        async(delete("/rest/ships/41")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        async(get("/rest/ships/41")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound());
+    }
+
+    //test5
+    @Test
+    public void notModifiedIsAnsweredWithoutDispatchTest() throws Exception {
+        String eTag = async(get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/rest/ships/count")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotModified());
+    }
+
+    //test6
+    @Test
+    public void timedOutTaskIsCancelledTest() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            SlowController slow = new SlowController(new Bulkhead("slow", 1, 60000, executor));
+            MockMvc standalone = MockMvcBuilders.standaloneSetup(slow).build();
+
+            MvcResult result = standalone.perform(get("/slow"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            assertTrue("Задача должна начать выполнение.", slow.started.await(5, TimeUnit.SECONDS));
+
+            MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+            for (AsyncListener listener : asyncContext.getListeners()) {
+                listener.onTimeout(new AsyncEvent(asyncContext));
+            }
+
+            assertTrue("По истечении времени ожидания задача должна прерываться.", slow.interrupted.await(5, TimeUnit.SECONDS));
+            standalone.perform(asyncDispatch(result)).andExpect(status().isServiceUnavailable());
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (slow.bulkhead.getAvailablePermits() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue("После отмены задачи разрешение должно возвращаться.", slow.bulkhead.getAvailablePermits() == 1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //test7
+    @Test
+    public void saturatedLookupLeavesListAnsweringTest() throws Exception {
+        ShipBulkheads bulkheads = new ShipBulkheads(8, false, 2, 5000, 2, 5000, 2, 5000, 2, 5000);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (Bulkhead busy : new Bulkhead[]{bulkheads.lookup(), bulkheads.count(), bulkheads.write()}) {
+                for (int i = 0; i < 2; i++) {
+                    busy.call(() -> await(release));
+                }
+                assertTrue("Занятая группа должна исчерпывать свои разрешения.", busy.getAvailablePermits() == 0);
+            }
+
+            // both list requests only finish if each of them got a thread of its own
+            CountDownLatch bothRunning = new CountDownLatch(2);
+            List<DeferredResult<Boolean>> lists = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                lists.add(bulkheads.list().call(() -> {
+                    bothRunning.countDown();
+                    return await(bothRunning);
+                }));
+            }
+
+            long deadline = System.currentTimeMillis() + 2000;
+            while (!(lists.get(0).hasResult() && lists.get(1).hasResult()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            for (DeferredResult<Boolean> list : lists) {
+                assertTrue("Перегрузка остальных групп не должна задерживать список.", Boolean.TRUE.equals(list.getResult()));
+            }
+        } finally {
+            release.countDown();
+            bulkheads.destroy();
+        }
+    }
+
+    //test8
+    @Test(expected = IllegalArgumentException.class)
+    public void permitsOverDbThreadsAreRejectedTest() {
+        new ShipBulkheads(4, false, 2, 5000, 2, 5000, 2, 5000, 2, 5000);
+    }
+
+    private ResultActions async(RequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    // a query that only ends when it is interrupted; no stereotype, so the controller scan leaves it alone
+    @RequestMapping
+    static class SlowController {
+
+        private final Bulkhead bulkhead;
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        SlowController(Bulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+
+        @GetMapping("/slow")
+        @ResponseBody
+        public DeferredResult<String> slow() {
+            return bulkhead.call(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(60000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return "done";
+            });
+        }
+    }
+}
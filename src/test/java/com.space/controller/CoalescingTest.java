@@ -0,0 +1,161 @@
+package com.space.controller;
+
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.service.FleetVersion;
+import com.space.service.ShipFilter;
+import com.space.service.ShipQueryCoalescer;
+import com.space.service.SingleFlight;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+/**
+ * Concurrent identical queries sharing one execution.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+public class CoalescingTest {
+
+    private static final int CALLERS = 8;
+
+    @Autowired
+    private ShipQueryCoalescer shipQueryCoalescer;
+
+    @Autowired
+    private FleetVersion fleetVersion;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    //test1
+    @Test
+    public void identicalCallsRunLoaderOnceTest() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            calls.add(executor.submit(() -> singleFlight.execute("count", () -> {
+                loads.incrementAndGet();
+                await(release);
+                return 40;
+            })));
+        }
+        assertTrue("Все вызовы должны присоединяться к выполняющемуся запросу.",
+                eventually(() -> singleFlight.getCoalesced() == CALLERS - 1));
+        release.countDown();
+
+        for (Future<Integer> call : calls) {
+            assertTrue("Каждый вызов должен получать результат общего запроса.", call.get(5, TimeUnit.SECONDS) == 40);
+        }
+        assertTrue("Одинаковые одновременные вызовы должны выполнять запрос один раз.",
+                loads.get() == 1 && singleFlight.getExecutions() == 1);
+        assertTrue("После завершения запрос не должен оставаться выполняющимся.", singleFlight.getInFlight() == 0);
+    }
+
+    //test2
+    @Test
+    public void failureReachesEveryCallerTest() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        IllegalStateException failure = new IllegalStateException("Database is gone");
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            calls.add(executor.submit(() -> singleFlight.execute("count", () -> {
+                await(release);
+                throw failure;
+            })));
+        }
+        assertTrue("Все вызовы должны присоединяться к выполняющемуся запросу.",
+                eventually(() -> singleFlight.getCoalesced() == CALLERS - 1));
+        release.countDown();
+
+        for (Future<Integer> call : calls) {
+            try {
+                call.get(5, TimeUnit.SECONDS);
+                assertTrue("Ошибка общего запроса должна доходить до каждого вызова.", false);
+            } catch (ExecutionException e) {
+                assertTrue("Каждый вызов должен получать ошибку общего запроса.", e.getCause() == failure);
+            }
+        }
+        assertTrue("Ошибка не должна оставлять запрос выполняющимся.", singleFlight.getInFlight() == 0);
+        assertTrue("Следующий вызов после ошибки должен выполнять запрос заново.", singleFlight.execute("count", () -> 40) == 40);
+    }
+
+    //test3
+    @Test
+    public void queryStartedBeforeChangeIsNotJoinedTest() throws Exception {
+        ShipFilter filter = new ShipFilter();
+        filter.setPlanet("CoalescingTest");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // a count that read the fleet before the change
+        Future<Long> before = executor.submit(() -> shipQueryCoalescer.count(filter, () -> {
+            started.countDown();
+            await(release);
+            return 40L;
+        }));
+        try {
+            assertTrue("Запрос должен начать выполнение.", started.await(5, TimeUnit.SECONDS));
+
+            // the caller's own write commits
+            fleetVersion.advance();
+
+            Future<Long> after = executor.submit(() -> shipQueryCoalescer.count(filter, () -> 41L));
+            assertTrue("Вызов после изменения не должен получать результат запроса, начатого до изменения.",
+                    after.get(5, TimeUnit.SECONDS) == 41L);
+        } finally {
+            release.countDown();
+        }
+        assertTrue("Запрос до изменения должен завершаться своим результатом.", before.get(5, TimeUnit.SECONDS) == 40L);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return condition.getAsBoolean();
+    }
+}
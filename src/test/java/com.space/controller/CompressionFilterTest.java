@@ -0,0 +1,303 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.CompressionFilter;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+
+import javax.servlet.Filter;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Responses passed through the filters of {@link MyWebAppInit}, with the default threshold of 1024 bytes.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class CompressionFilterTest {
+
+    private static final String GZIP = "gzip";
+    private static final String SCRIPTS = "/resources/scripts.js";
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+    private CompressionFilter compressionFilter;
+    private String encodedScripts;
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    @Before
+    public void setup() throws Exception {
+        compressionFilter = new CompressionFilter();
+        compressionFilter.init(new MockFilterConfig(context.getServletContext()));
+
+        // how a page rendered behind the filters links a static resource
+        Filter page = (request, response, chain) -> {
+            chain.doFilter(request, response);
+            encodedScripts = ((HttpServletResponse) response).encodeURL(SCRIPTS);
+        };
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(compressionFilter, new ResourceUrlEncodingFilter(), page)
+                .build();
+    }
+
+    //test1
+    @Test
+    public void smallBodyIsNotCompressedTest() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships/12")
+                .header(HttpHeaders.ACCEPT_ENCODING, GZIP)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertTrue("Ответ меньше порога не должен сжиматься.", response.getHeader(HttpHeaders.CONTENT_ENCODING) == null);
+        assertTrue("Сжимаемый тип должен отмечаться заголовком Vary.",
+                response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        ShipInfoTest ship = mapper.readValue(response.getContentAsString(), ShipInfoTest.class);
+        assertTrue("Несжатый ответ должен передаваться полностью.", ship.id == 12);
+    }
+
+    //test2
+    @Test
+    public void largeBodyIsCompressedTest() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertTrue("Ответ больше порога должен сжиматься.", GZIP.equals(response.getHeader(HttpHeaders.CONTENT_ENCODING)));
+        assertTrue("Сжатый ответ должен отмечаться заголовком Vary.",
+                response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        assertTrue("Сжатый ответ не должен нести длину несжатого тела.",
+                response.getHeader(HttpHeaders.CONTENT_LENGTH) == null);
+
+        List<ShipInfoTest> ships = mapper.readValue(gunzip(response), typeReference);
+        assertTrue("Распакованный ответ должен содержать всю страницу.", ships.size() == 40);
+    }
+
+    //test3
+    @Test
+    public void bodyIsNotCompressedWithoutGzipTest() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertTrue("Ответ не должен сжиматься, если клиент не принимает gzip.",
+                response.getHeader(HttpHeaders.CONTENT_ENCODING) == null);
+        List<ShipInfoTest> ships = mapper.readValue(response.getContentAsString(), typeReference);
+        assertTrue("Несжатый ответ должен содержать всю страницу.", ships.size() == 40);
+    }
+
+    //test4
+    @Test
+    public void eventStreamIsNotCompressedTest() throws Exception {
+        MvcResult events = mockMvc.perform(get("/rest/ships/events")
+                .header(HttpHeaders.ACCEPT_ENCODING, GZIP)
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(post("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        MockHttpServletResponse response = events.getResponse();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!response.getContentAsString().contains("\"id\":41") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue("Поток событий не должен сжиматься.", response.getHeader(HttpHeaders.CONTENT_ENCODING) == null);
+        assertTrue("Событие должно доходить до клиента сразу, не дожидаясь порога.",
+                response.getContentAsString().contains("event:created"));
+    }
+
+    //test5
+    @Test
+    public void asyncBodyIsFinishedByDispatchTest() throws Exception {
+        MockMvc standalone = MockMvcBuilders.standaloneSetup(new TextController())
+                .addFilters(compressionFilter)
+                .build();
+
+        MvcResult small = standalone.perform(get("/text?length=100")
+                .header(HttpHeaders.ACCEPT_ENCODING, GZIP))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = standalone.perform(asyncDispatch(small))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertTrue("Небольшой асинхронный ответ не должен сжиматься.", response.getHeader(HttpHeaders.CONTENT_ENCODING) == null);
+        assertTrue("Несжатый ответ должен сохранять заголовок Content-Length.",
+                "100".equals(response.getHeader(HttpHeaders.CONTENT_LENGTH)));
+        assertTrue("Несжатый ответ должен передаваться полностью.", response.getContentAsString().length() == 100);
+
+        MvcResult large = standalone.perform(get("/text?length=5000")
+                .header(HttpHeaders.ACCEPT_ENCODING, GZIP))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        response = standalone.perform(asyncDispatch(large))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertTrue("Большой асинхронный ответ должен сжиматься.", GZIP.equals(response.getHeader(HttpHeaders.CONTENT_ENCODING)));
+        assertTrue("Сжатый ответ не должен нести длину несжатого тела.",
+                response.getHeader(HttpHeaders.CONTENT_LENGTH) == null);
+        assertTrue("Сжатие асинхронного ответа должно завершаться при диспетчеризации.", gunzip(response).length() == 5000);
+    }
+
+    //test6
+    @Test
+    public void versionedResourceIsCompressedTest() throws Exception {
+        mockMvc.perform(get("/"))
+                .andExpect(status().isOk());
+        assertTrue("Страница должна ссылаться на версионированный адрес ресурса: " + encodedScripts,
+                encodedScripts.matches("/resources/scripts-[0-9a-f]{32}\\.js"));
+
+        byte[] scripts = FileCopyUtils.copyToByteArray(new File("src/main/webapp" + SCRIPTS));
+        MockHttpServletResponse response = mockMvc.perform(get(encodedScripts)
+                .header(HttpHeaders.ACCEPT_ENCODING, GZIP))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertTrue("Версионированный ресурс должен кэшироваться навсегда.",
+                response.getHeader(HttpHeaders.CACHE_CONTROL).contains("immutable"));
+        assertTrue("Скрипт больше порога должен сжиматься.", GZIP.equals(response.getHeader(HttpHeaders.CONTENT_ENCODING)));
+        assertTrue("Сжатый ресурс не должен нести длину несжатого файла.",
+                response.getHeader(HttpHeaders.CONTENT_LENGTH) == null);
+        assertTrue("Распакованный ресурс должен совпадать с файлом.",
+                Arrays.equals(scripts, gunzip(response).getBytes(StandardCharsets.UTF_8)));
+
+        response = mockMvc.perform(get(encodedScripts))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertTrue("Несжатый ресурс должен нести длину файла.",
+                String.valueOf(scripts.length).equals(response.getHeader(HttpHeaders.CONTENT_LENGTH)));
+        assertTrue("Несжатый ресурс должен совпадать с файлом.", Arrays.equals(scripts, response.getContentAsByteArray()));
+    }
+
+    //test7
+    @Test
+    public void nonBlockingWriteIsNotCompressedTest() throws Exception {
+        WriteListener[] registered = new WriteListener[1];
+        MockHttpServletResponse response = new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        registered[0] = writeListener;
+                    }
+
+                    @Override
+                    public void write(int b) {
+                    }
+                };
+            }
+        };
+        WriteListener listener = new WriteListener() {
+            @Override
+            public void onWritePossible() {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        };
+
+        compressionFilter.doFilter(get("/text").header(HttpHeaders.ACCEPT_ENCODING, GZIP)
+                        .buildRequest(context.getServletContext()), response,
+                (request, filtered) -> {
+                    filtered.setContentType(MediaType.TEXT_PLAIN_VALUE);
+                    ServletOutputStream stream = filtered.getOutputStream();
+                    stream.setWriteListener(listener);
+                    assertTrue("Поток должен сообщать о готовности контейнера.", stream.isReady());
+                });
+
+        assertTrue("Слушатель неблокирующей записи должен передаваться контейнеру.", registered[0] == listener);
+        assertTrue("Неблокирующая запись не должна сжиматься.", response.getHeader(HttpHeaders.CONTENT_ENCODING) == null);
+    }
+
+    private static String gunzip(MockHttpServletResponse response) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    // no stereotype, so the controller scan leaves it alone
+    @RequestMapping
+    static class TextController {
+
+        @GetMapping(value = "/text", produces = MediaType.TEXT_PLAIN_VALUE)
+        @ResponseBody
+        public Callable<String> text(@RequestParam(defaultValue = "0") int length) {
+            return () -> {
+                StringBuilder text = new StringBuilder(length);
+                for (int i = 0; i < length; i++) {
+                    text.append((char) ('a' + i % 26));
+                }
+                return text.toString();
+            };
+        }
+    }
+}
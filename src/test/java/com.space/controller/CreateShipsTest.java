@@ -0,0 +1,139 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.CapturedStatement;
+import com.space.config.MyWebAppInit;
+import com.space.config.QueryCapture;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.Ship;
+import com.space.service.ShipDataGenerator;
+import com.space.service.ShipService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class CreateShipsTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShipService shipService;
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void createShipsTest() throws Exception {
+        String content = mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.NORMAL_JSON + "," + TestsHelper.NORMAL_JSON + "]"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<ShipInfoTest> actual = mapper.readValue(content, typeReference);
+
+        assertTrue("При запросе POST /rest/ships/batch должны создаваться все корабли.", actual.size() == 3);
+        for (int i = 0; i < actual.size(); i++) {
+            assertTrue("Корабли должны получать id по порядку из последовательности.", actual.get(i).id == 41 + i);
+            assertTrue("Возвращается не правильный рейтинг созданного корабля.", actual.get(i).rating == 12.8);
+        }
+
+        mockMvc.perform(get("/rest/ships/43")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+    }
+
+    //test2
+    @Test
+    public void createShipsWithInvalidShipCreatesNothingTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.EMPTY_NAME_JSON + "]"))
+                .andExpect(status().isBadRequest());
+
+        String count = mockMvc.perform(get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue("При ошибке в одном из кораблей не должен создаваться ни один.", Integer.parseInt(count) == 40);
+    }
+
+    //test3
+    @Test
+    public void createShipsEmptyListTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void createShipsInsertsInOneBatchTest() {
+        ShipDataGenerator generator = new ShipDataGenerator(7);
+        List<Ship> ships = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ships.add(generator.next());
+        }
+
+        QueryCapture capture = new QueryCapture();
+        QueryCapture.attach(capture);
+        try {
+            shipService.createShips(ships);
+        } finally {
+            QueryCapture.detach();
+        }
+
+        long inserts = 0;
+        for (CapturedStatement statement : capture.getStatements()) {
+            if (statement.getSql().toLowerCase().startsWith("insert into ship ")) {
+                inserts++;
+            }
+        }
+
+        assertTrue("Вставка кораблей должна выполняться одним пакетом JDBC, а не по одному запросу на корабль.", inserts == 1);
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
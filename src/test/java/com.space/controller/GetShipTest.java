@@ -1,6 +1,9 @@
 package com.space.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.space.config.JsonConfig;
 import com.space.config.MyWebAppInit;
 import com.space.config.WebConfig;
 import com.space.controller.utils.ShipInfoTest;
@@ -23,6 +26,7 @@ import org.springframework.web.context.WebApplicationContext;
 
 import static org.springframework.test.util.AssertionErrors.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -78,6 +82,33 @@ public class GetShipTest {
         assertTrue("Вернулся неправильный объект при запросе GET /rest/ships/{id}", actual.equals(expected));
     }
 
+    //test5
+    @Test
+    public void getShipByIdSmileTest() throws Exception {
+        assertBinaryShip(JsonConfig.APPLICATION_SMILE, new ObjectMapper(new SmileFactory()));
+    }
+
+    //test6
+    @Test
+    public void getShipByIdCborTest() throws Exception {
+        assertBinaryShip(JsonConfig.APPLICATION_CBOR, new ObjectMapper(new CBORFactory()));
+    }
+
+    private void assertBinaryShip(MediaType mediaType, ObjectMapper mapper) throws Exception {
+        ShipInfoTest expected = new TestsHelper().getShipInfosById(14);
+
+        ResultActions resultActions = mockMvc.perform(get("/rest/ships/14")
+                .accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(mediaType));
+
+        byte[] content = resultActions.andReturn().getResponse().getContentAsByteArray();
+        ShipInfoTest actual = mapper.readValue(content, ShipInfoTest.class);
+        assertTrue("Вернулся неправильный объект при запросе GET /rest/ships/{id} в формате " + mediaType, actual.equals(expected));
+        assertTrue("Тип корабля в формате " + mediaType + " должен передаваться порядковым номером",
+                mapper.readTree(content).get("shipType").isInt());
+    }
+
     @Autowired
     public void setContext(WebApplicationContext context) {
         this.context = context;
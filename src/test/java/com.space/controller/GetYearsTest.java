@@ -0,0 +1,132 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class GetYearsTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void getYearsWithoutFiltersCountsAllShips() throws Exception {
+        Map<Integer, Long> actual = years("");
+        Map<Integer, Long> expected = countByYear(testsHelper.getAllShips());
+
+        assertTrue("Возвращается не правильный результат при запросе GET /rest/ships/years.", actual.equals(expected));
+    }
+
+    //test2
+    @Test
+    public void getYearsWithFiltersShipTypeMinMaxYear() throws Exception {
+        Map<Integer, Long> actual = years("shipType=MILITARY&minYear=2990&maxYear=3010");
+        Map<Integer, Long> expected = countByYear(byYear(2990, 3010,
+                testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips())));
+
+        assertTrue("Возвращается не правильный результат при запросе GET /rest/ships/years с параметрами shipType, minYear и maxYear.", actual.equals(expected));
+    }
+
+    //test3
+    @Test
+    public void getCountWithFiltersMinMaxYear() throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/count?minYear=2995&maxYear=3005")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        int expected = byYear(2995, 3005, testsHelper.getAllShips()).size();
+
+        assertTrue("Возвращается не правильный результат при запросе GET /rest/ships/count с параметрами minYear и maxYear.", Integer.parseInt(content) == expected);
+    }
+
+    //test4
+    @Test
+    public void updatedShipMovesToItsNewYear() throws Exception {
+        Map<Integer, Long> before = years("");
+
+        // ship 1 was produced in 2995
+        mockMvc.perform(post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"prodDate\": 32998274577071}"))
+                .andExpect(status().isOk());
+        Map<Integer, Long> after = years("");
+
+        assertTrue("Год выпуска не обновляется вместе с датой выпуска.",
+                after.getOrDefault(2995, 0L) == before.get(2995) - 1 && after.get(3015) == before.getOrDefault(3015, 0L) + 1);
+    }
+
+    private Map<Integer, Long> years(String query) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/years?" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        Map<Integer, Long> years = new TreeMap<>();
+        for (JsonNode year : mapper.readTree(content)) {
+            years.put(year.get("year").asInt(), year.get("count").asLong());
+        }
+        return years;
+    }
+
+    private static int yearOf(ShipInfoTest ship) {
+        return Instant.ofEpochMilli(ship.prodDate).atZone(ZoneOffset.UTC).getYear();
+    }
+
+    private static List<ShipInfoTest> byYear(int minYear, int maxYear, List<ShipInfoTest> ships) {
+        return ships.stream()
+                .filter(ship -> yearOf(ship) >= minYear && yearOf(ship) <= maxYear)
+                .collect(Collectors.toList());
+    }
+
+    private static Map<Integer, Long> countByYear(List<ShipInfoTest> ships) {
+        return ships.stream().collect(Collectors.groupingBy(GetYearsTest::yearOf, TreeMap::new, Collectors.counting()));
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
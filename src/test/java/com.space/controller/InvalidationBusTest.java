@@ -0,0 +1,197 @@
+package com.space.controller;
+
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.service.DatabaseInvalidationTransport;
+import com.space.service.LoopbackInvalidationTransport;
+import com.space.service.ShipEvent;
+import com.space.service.ShipInvalidation;
+import com.space.service.ShipInvalidationBus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The application as node "a" of a fleet on the loopback transport, with a second node "b" played by the test.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {"cosmoport.invalidation.transport=loopback", "cosmoport.invalidation.node=a"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class InvalidationBusTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShipInvalidationBus shipInvalidationBus;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final LoopbackInvalidationTransport nodeB = new LoopbackInvalidationTransport();
+    private final List<ShipInvalidation> receivedByB = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        nodeB.start("b", receivedByB::add);
+    }
+
+    @After
+    public void stopNodeB() {
+        nodeB.stop();
+    }
+
+    //test1
+    @Test
+    public void updateIsSentToOtherNodesTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/12")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\": 0.5}"))
+                .andExpect(status().isOk());
+
+        assertTrue("Изменение корабля должно рассылаться другим узлам.", receivedByB.size() == 1
+                && receivedByB.get(0).getShipId() == 12 && receivedByB.get(0).getType() == ShipEvent.Type.UPDATED
+                && receivedByB.get(0).getNode().equals("a"));
+    }
+
+    //test2
+    @Test
+    public void invalidationFromOtherNodeRetiresValidatorsTest() throws Exception {
+        String eTag = mockMvc.perform(get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        List<ShipInvalidation> receivedByA = new CopyOnWriteArrayList<>();
+        Consumer<ShipInvalidation> listener = receivedByA::add;
+        shipInvalidationBus.subscribe(listener);
+        try {
+            nodeB.send(new ShipInvalidation("b", ShipEvent.Type.DELETED, 7L, System.currentTimeMillis()));
+        } finally {
+            shipInvalidationBus.unsubscribe(listener);
+        }
+
+        mockMvc.perform(get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        assertTrue("Слушатели должны получать изменения других узлов, но не свои.",
+                receivedByA.size() == 1 && receivedByA.get(0).getShipId() == 7 && receivedByB.isEmpty());
+    }
+
+    //test3
+    @Test
+    public void databaseTransportDeliversToOtherNodesOnlyTest() {
+        DatabaseInvalidationTransport c = new DatabaseInvalidationTransport(dataSource, 3600000, 60000);
+        DatabaseInvalidationTransport d = new DatabaseInvalidationTransport(dataSource, 3600000, 60000);
+        List<ShipInvalidation> receivedByC = new CopyOnWriteArrayList<>();
+        List<ShipInvalidation> receivedByD = new CopyOnWriteArrayList<>();
+        c.start("c", receivedByC::add);
+        d.start("d", receivedByD::add);
+        try {
+            c.send(new ShipInvalidation("c", ShipEvent.Type.CREATED, 41L, System.currentTimeMillis()));
+        } finally {
+            // waits for the send
+            c.stop();
+        }
+
+        d.poll();
+        c.poll();
+        d.stop();
+
+        assertTrue("Через базу изменения должны доходить до других узлов.",
+                receivedByD.size() == 1 && receivedByD.get(0).getShipId() == 41 && receivedByD.get(0).getType() == ShipEvent.Type.CREATED);
+        assertTrue("Узел не должен получать свои же изменения.", receivedByC.isEmpty());
+    }
+
+    //test4
+    @Test
+    public void databaseTransportWaitsForGapsTest() throws Exception {
+        DatabaseInvalidationTransport e = new DatabaseInvalidationTransport(dataSource, 3600000, 60000);
+        List<ShipInvalidation> received = new CopyOnWriteArrayList<>();
+        e.start("e", received::add);
+        e.stop();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long last = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM ship_invalidation", Long.class);
+        String insert = "INSERT INTO ship_invalidation (id, node, type, ship_id, created) VALUES (?, 'f', 'UPDATED', ?, ?)";
+
+        jdbcTemplate.update(insert, last + 2, 2, System.currentTimeMillis());
+        long syncedAt = e.getSyncedAt();
+        Thread.sleep(5);
+        e.poll();
+        assertTrue("Пока предыдущая запись не видна, узел не может считаться синхронизированным.",
+                received.size() == 1 && e.getSyncedAt() == syncedAt);
+
+        jdbcTemplate.update(insert, last + 1, 1, System.currentTimeMillis());
+        e.poll();
+        assertTrue("Запоздавшая запись должна быть получена, после чего узел снова синхронизирован.",
+                received.size() == 2 && received.get(1).getShipId() == 1 && e.getSyncedAt() > syncedAt);
+    }
+
+    //test5
+    @Test
+    public void changesOfOtherNodeArePushedToEventClientsTest() throws Exception {
+        MvcResult events = mockMvc.perform(get("/rest/ships/events")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // node b changed ship 12 in the shared database
+        new JdbcTemplate(dataSource).update("UPDATE ship SET name = 'Remote' WHERE id = 12");
+        nodeB.send(new ShipInvalidation("b", ShipEvent.Type.UPDATED, 12L, System.currentTimeMillis()));
+        nodeB.send(new ShipInvalidation("b", ShipEvent.Type.DELETED, 7L, System.currentTimeMillis()));
+
+        String body = await(events.getResponse(), "{\"id\":7}");
+        assertTrue("Клиенты событий должны узнавать об изменениях на других узлах.",
+                body.contains("event:updated") && body.contains("\"name\":\"Remote\""));
+        assertTrue("Клиенты событий должны узнавать об удалениях на других узлах.",
+                body.contains("event:deleted") && body.contains("{\"id\":7}"));
+    }
+
+    private static String await(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String body = response.getContentAsString();
+        while (!body.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            body = response.getContentAsString();
+        }
+        return body;
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
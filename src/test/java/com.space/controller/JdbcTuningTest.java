@@ -0,0 +1,81 @@
+package com.space.controller;
+
+import com.space.config.CapturedStatement;
+import com.space.config.MyWebAppInit;
+import com.space.config.QueryCapture;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.model.Ship;
+import com.space.service.ShipDataGenerator;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+/**
+ * Round trips of the performance JDBC profile with batches of ten statements and scans of 25 rows per fetch.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {"cosmoport.jpa.batch-size=10", "cosmoport.jpa.fetch-size=25"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class JdbcTuningTest {
+
+    @Autowired
+    private ShipService shipService;
+
+    //test1
+    @Test
+    public void insertsGoOutInBatchesOfBatchSizeTest() {
+        ShipDataGenerator generator = new ShipDataGenerator(11);
+        List<Ship> ships = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            ships.add(generator.next());
+        }
+
+        QueryCapture capture = capture(() -> shipService.createShips(ships));
+
+        int roundTrips = 0;
+        for (CapturedStatement statement : capture.getStatements()) {
+            if (statement.getSql().toLowerCase().startsWith("insert into ship ")) {
+                roundTrips += statement.getExecutions();
+            }
+        }
+        assertTrue("25 кораблей при размере пакета 10 должны вставляться за 3 обращения к базе.", roundTrips == 3);
+    }
+
+    //test2
+    @Test
+    public void scanUsesFetchSizeTest() {
+        QueryCapture capture = capture(() -> shipService.getAllShips(new ShipFilter().toSpecification(shipService)));
+
+        List<CapturedStatement> statements = capture.getStatements();
+        assertTrue("Выборка всех кораблей должна выполняться одним запросом.",
+                statements.size() == 1 && statements.get(0).getExecutions() == 1 && statements.get(0).getRows() == 40);
+        assertTrue("Выборка должна читать строки порциями заданного размера.", statements.get(0).getFetchSize() == 25);
+    }
+
+    private static QueryCapture capture(Runnable task) {
+        QueryCapture capture = new QueryCapture();
+        QueryCapture.attach(capture);
+        try {
+            task.run();
+        } finally {
+            QueryCapture.detach();
+        }
+        return capture;
+    }
+}
@@ -0,0 +1,197 @@
+package com.space.controller;
+
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.model.Ship;
+import com.space.service.FleetVersion;
+import com.space.service.ParallelPageQueries;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+/**
+ * Pages whose count runs next to their content, with a single count allowed aside.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {"cosmoport.parallel-count.enabled=true", "cosmoport.parallel-count.max-concurrent=1"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class ParallelCountTest {
+
+    @Autowired
+    private ShipService shipService;
+
+    @Autowired
+    private ParallelPageQueries parallelPageQueries;
+
+    @Autowired
+    private FleetVersion fleetVersion;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Pageable firstPage = PageRequest.of(0, 5, ShipOrder.RATING.getSort());
+
+    //test1
+    @Test
+    public void pageTotalIsCountedAsideTest() {
+        long parallel = (Long) parallelPageQueries.getStatistics().get("parallel");
+
+        ShipFilter filter = new ShipFilter();
+        filter.setMinSpeed(0.3);
+        Page<Ship> page = shipService.getShips(filter, firstPage);
+
+        assertTrue("Общее количество страницы должно совпадать с GET /rest/ships/count.",
+                page.getTotalElements() == shipService.countShips(filter) && page.getNumberOfElements() == 5);
+        assertTrue("Количество должно считаться параллельно с содержимым страницы.",
+                (Long) parallelPageQueries.getStatistics().get("parallel") == parallel + 1);
+    }
+
+    //test2
+    @Test
+    public void pageIsReadAgainAfterChangeTest() {
+        Page<Ship> serial = new PageImpl<>(Collections.emptyList());
+
+        Page<Ship> page = parallelPageQueries.page(firstPage, () -> {
+            fleetVersion.advance();
+            return ships(5);
+        }, () -> 40L, () -> serial);
+
+        assertTrue("Если флот изменился во время запросов, страница должна читаться заново последовательно.", page == serial);
+    }
+
+    //test3
+    @Test
+    public void pageIsReadSeriallyWhenCountsAreBusyTest() throws Exception {
+        CountDownLatch counting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Page<Ship>> blocked = CompletableFuture.supplyAsync(() -> parallelPageQueries.page(firstPage,
+                () -> ships(5), () -> {
+                    counting.countDown();
+                    await(release);
+                    return 40L;
+                }, () -> null));
+
+        try {
+            assertTrue("Подсчёт не запустился.", counting.await(10, TimeUnit.SECONDS));
+            Page<Ship> serial = new PageImpl<>(Collections.emptyList());
+            Page<Ship> page = parallelPageQueries.page(firstPage, () -> ships(5), () -> 40L, () -> serial);
+
+            assertTrue("При занятых потоках подсчёта страница должна читаться последовательно.", page == serial);
+        } finally {
+            release.countDown();
+        }
+        assertTrue("Заблокированная страница должна получить своё количество.", blocked.get(10, TimeUnit.SECONDS).getTotalElements() == 40);
+    }
+
+    //test4
+    @Test
+    public void countOfShortPageIsCancelledTest() throws Exception {
+        long cancelled = (Long) parallelPageQueries.getStatistics().get("cancelled");
+        CountDownLatch counting = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        Page<Ship> page = parallelPageQueries.page(firstPage, () -> {
+            await(counting);
+            return ships(3);
+        }, () -> {
+            counting.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return 40L;
+        }, () -> null);
+
+        assertTrue("Короткая страница должна считать итог по своему содержимому.", page.getTotalElements() == 3);
+        assertTrue("Ненужный подсчёт должен прерываться.", interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue("Ненужный подсчёт должен учитываться как отменённый.",
+                (Long) parallelPageQueries.getStatistics().get("cancelled") == cancelled + 1);
+        assertTrue("Отменённый подсчёт должен освобождать свой поток.", eventually(() -> parallelPageQueries.getActive() == 0));
+    }
+
+    //test5
+    @Test
+    public void countStatementIsCancelledWhenContentFailsTest() throws Exception {
+        CountDownLatch counting = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("Content failed");
+
+        try {
+            parallelPageQueries.page(firstPage, () -> {
+                await(counting);
+                sleep(300);
+                throw failure;
+            }, () -> {
+                counting.countDown();
+                // long enough to outlast the test unless its statement is cancelled
+                return ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM ship a, ship b, ship c, ship d, ship e")
+                        .getSingleResult()).longValue();
+            }, () -> null);
+            assertTrue("Ошибка содержимого страницы должна доходить до вызывающего.", false);
+        } catch (IllegalStateException e) {
+            assertTrue("Ошибка содержимого страницы должна доходить до вызывающего.", e == failure);
+        }
+
+        assertTrue("Запрос подсчёта должен отменяться в базе, а не выполняться до конца.",
+                eventually(() -> parallelPageQueries.getActive() == 0));
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return condition.getAsBoolean();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<Ship> ships(int count) {
+        List<Ship> ships = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ships.add(new Ship());
+        }
+        return ships;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.space.controller;
+
+import com.space.config.CapturedStatement;
+import com.space.config.MyWebAppInit;
+import com.space.config.QueryCapture;
+import com.space.config.ShipPartitioning;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.model.EpochDates;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks through EXPLAIN that filtered queries only read the partitions they need. H2 has no
+ * partitioning, so this only runs against MySQL with {@code -Dspring.profiles.active=mysql}.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class PartitionPruningTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Before
+    public void setup() {
+        Assume.assumeTrue(environment.acceptsProfiles(Profiles.of(TestDataSourceConfig.MYSQL)));
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void shipTypeFilterReadsOnlyItsPartition() throws Exception {
+        ShipPartitioning.SHIP_TYPE.apply(dataSource);
+
+        assertEquals("Фильтр shipType читает лишние партиции.",
+                partitions("p_military"), partitionsRead("/rest/ships?shipType=MILITARY"));
+    }
+
+    //test2
+    @Test
+    public void unfilteredListReadsAllPartitions() throws Exception {
+        ShipPartitioning.SHIP_TYPE.apply(dataSource);
+
+        assertEquals("Запрос без фильтров должен читать все партиции.",
+                partitions("p_merchant", "p_military", "p_transport"), partitionsRead("/rest/ships/count"));
+    }
+
+    //test3
+    @Test
+    public void yearFilterReadsOnlyItsEra() throws Exception {
+        ShipPartitioning.PRODUCTION_ERA.apply(dataSource);
+
+        assertEquals("Фильтр minYear/maxYear читает лишние партиции.",
+                partitions("p2950"), partitionsRead("/rest/ships/count?minYear=2960&maxYear=2990"));
+    }
+
+    //test4
+    @Test
+    public void dateFilterReadsOnlyItsEras() throws Exception {
+        ShipPartitioning.PRODUCTION_ERA.apply(dataSource);
+        long after = EpochDates.toMillis(LocalDate.of(2960, 3, 1));
+        long before = EpochDates.toMillis(LocalDate.of(3010, 6, 1));
+
+        assertEquals("Фильтр after/before читает лишние партиции.",
+                partitions("p2950", "p3000"), partitionsRead("/rest/ships?after=" + after + "&before=" + before));
+    }
+
+    private Set<String> partitionsRead(String url) throws Exception {
+        QueryCapture capture = new QueryCapture();
+        QueryCapture.attach(capture);
+        try {
+            mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk());
+        } finally {
+            QueryCapture.detach();
+        }
+
+        Set<String> partitions = new TreeSet<>();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (CapturedStatement statement : capture.getStatements()) {
+            if (!statement.getSql().trim().toLowerCase().startsWith("select")) {
+                continue;
+            }
+            for (Map<String, Object> row : jdbcTemplate.queryForList("EXPLAIN " + statement.getSql(), statement.getBinds().toArray())) {
+                Object read = row.get("partitions");
+                if (read != null) {
+                    partitions.addAll(Arrays.asList(read.toString().split(",")));
+                }
+            }
+        }
+        return partitions;
+    }
+
+    private static Set<String> partitions(String... names) {
+        return new TreeSet<>(Arrays.asList(names));
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
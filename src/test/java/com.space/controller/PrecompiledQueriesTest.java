@@ -0,0 +1,138 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import com.space.service.ShipQueryRegistry;
+import com.space.service.ShipService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Lists and counts served from precompiled queries, checked against the Specification of the same filter.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class PrecompiledQueriesTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShipService shipService;
+
+    @Autowired
+    private ShipQueryRegistry shipQueryRegistry;
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void partialYearDatesMatchSpecificationTest() throws Exception {
+        // 01.03.2995 and 15.10.3005, inside their years, so the dates are compared besides the years
+        ShipFilter filter = new ShipFilter();
+        filter.setAfter(32351011200000L);
+        filter.setBefore(32686243200000L);
+        filter.setShipType(ShipType.MERCHANT);
+
+        List<Long> actual = ids("/rest/ships?after=32351011200000&before=32686243200000&shipType=MERCHANT&order=RATING&pageSize=40");
+
+        assertTrue("Список кораблей по заранее построенному запросу должен совпадать со списком по спецификации.",
+                actual.equals(expected(filter, ShipOrder.RATING.getSort())));
+        assertTrue("Количество кораблей по заранее построенному запросу должно совпадать с количеством по спецификации.",
+                count("/rest/ships/count?after=32351011200000&before=32686243200000&shipType=MERCHANT") == actual.size());
+    }
+
+    //test2
+    @Test
+    public void allBoundsMatchSpecificationTest() throws Exception {
+        ShipFilter filter = new ShipFilter();
+        filter.setName("a");
+        filter.setIsUsed(false);
+        filter.setMinSpeed(0.1);
+        filter.setMaxSpeed(0.9);
+        filter.setMinCrewSize(10);
+        filter.setMaxCrewSize(3000);
+        filter.setMinRating(0.5);
+        filter.setMaxRating(5d);
+        filter.setMinYear(2990);
+
+        List<Long> actual = ids("/rest/ships?name=a&isUsed=false&minSpeed=0.1&maxSpeed=0.9&minCrewSize=10&maxCrewSize=3000"
+                + "&minRating=0.5&maxRating=5&minYear=2990&order=SPEED&pageSize=40");
+
+        assertTrue("Список кораблей со всеми фильтрами должен совпадать со списком по спецификации.",
+                !actual.isEmpty() && actual.equals(expected(filter, ShipOrder.SPEED.getSort())));
+    }
+
+    //test3
+    @Test
+    public void sameShapeReusesStatementTest() throws Exception {
+        ids("/rest/ships?planet=Earth&minSpeed=0.2&order=DATE");
+        int statements = shipQueryRegistry.getStatements();
+        ids("/rest/ships?planet=Mars&minSpeed=0.7&order=DATE");
+
+        assertTrue("Запросы с одинаковым набором фильтров и сортировкой должны использовать один построенный запрос.",
+                shipQueryRegistry.getStatements() == statements);
+    }
+
+    private List<Long> ids(String url) throws Exception {
+        String content = mockMvc.perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<ShipInfoTest> ships = mapper.readValue(content, typeReference);
+        return ships.stream().map(ship -> ship.id).collect(Collectors.toList());
+    }
+
+    private int count(String url) throws Exception {
+        return Integer.parseInt(mockMvc.perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private List<Long> expected(ShipFilter filter, Sort sort) {
+        return shipService.getAllShips(filter.toSpecification(shipService), PageRequest.of(0, 40, sort)).getContent()
+                .stream().map(Ship::getId).collect(Collectors.toList());
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
@@ -0,0 +1,140 @@
+package com.space.controller;
+
+import com.space.config.MyWebAppInit;
+import com.space.config.QueryCapture;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.model.Ship;
+import com.space.service.ShipFilter;
+import com.space.service.ShipPagePrefetcher;
+import com.space.service.ShipService;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+/**
+ * Next-page prefetching, evaluated every four prefetches against a hit rate of one half.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {"cosmoport.prefetch.enabled=true", "cosmoport.prefetch.window=4",
+        "cosmoport.prefetch.min-hit-rate=0.5", "cosmoport.prefetch.cooldown=1000"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class PrefetchTest {
+
+    @Autowired
+    private ShipService shipService;
+
+    @Autowired
+    private ShipPagePrefetcher shipPagePrefetcher;
+
+    // a prefetch still running would query the tables test.sql recreates for the next test
+    @After
+    public void awaitPrefetches() throws InterruptedException {
+        awaitPrefetched();
+    }
+
+    //test1
+    @Test
+    public void nextPageIsServedWithoutQueryTest() throws Exception {
+        ShipFilter filter = new ShipFilter();
+        filter.setPlanet("a");
+        Pageable first = PageRequest.of(0, 3, ShipOrder.SPEED.getSort());
+
+        shipService.getShips(filter, first);
+        awaitPrefetched();
+
+        QueryCapture capture = new QueryCapture();
+        QueryCapture.attach(capture);
+        Page<Ship> second;
+        try {
+            second = shipService.getShips(filter, first.next());
+        } finally {
+            QueryCapture.detach();
+        }
+
+        Page<Ship> expected = shipService.getAllShips(filter.toSpecification(shipService), first.next());
+        assertTrue("Следующая страница должна отдаваться из предзагрузки без запросов к базе.", capture.getStatements().isEmpty());
+        assertTrue("Предзагруженная страница должна совпадать со страницей из базы.",
+                second.getNumberOfElements() == 3
+                        && second.getContent().get(0).getId().equals(expected.getContent().get(0).getId())
+                        && second.getTotalElements() == expected.getTotalElements());
+    }
+
+    //test2
+    @Test
+    public void changedFleetIsNotServedFromPrefetchTest() throws Exception {
+        ShipFilter filter = new ShipFilter();
+        filter.setPlanet("e");
+        Pageable first = PageRequest.of(0, 2, ShipOrder.ID.getSort());
+
+        shipService.getShips(filter, first);
+        awaitPrefetched();
+        Ship ship = shipService.getAllShips(filter.toSpecification(shipService), first.next()).getContent().get(0);
+
+        Ship changes = new Ship();
+        changes.setName("Prefetched");
+        shipService.updateShip(String.valueOf(ship.getId()), changes);
+
+        Page<Ship> second = shipService.getShips(filter, first.next());
+        assertTrue("После изменения флота предзагруженная страница не должна отдаваться.",
+                "Prefetched".equals(second.getContent().get(0).getName()));
+    }
+
+    //test3
+    @Test
+    public void prefetchPausesOnLowHitRateTest() throws Exception {
+        for (int i = 0; i < 12 && !shipPagePrefetcher.isPaused(); i++) {
+            ShipFilter filter = new ShipFilter();
+            filter.setMaxCrewSize(5000 - i);
+            shipService.getShips(filter, PageRequest.of(0, 1, ShipOrder.ID.getSort()));
+        }
+
+        assertTrue("При низкой доле попаданий предзагрузка должна приостанавливаться.", shipPagePrefetcher.isPaused());
+        // the cooldown is short, so the other tests find prefetching active again
+        Thread.sleep(1000);
+    }
+
+    //test4
+    @Test
+    @DirtiesContext
+    public void rejectedPrefetchIsGivenUpTest() throws Exception {
+        // a stopped executor rejects every prefetch, as a full queue does
+        shipPagePrefetcher.destroy();
+        long prefetched = (Long) shipPagePrefetcher.getStatistics().get("prefetched");
+
+        ShipFilter filter = new ShipFilter();
+        filter.setPlanet("u");
+        Pageable first = PageRequest.of(0, 2, ShipOrder.ID.getSort());
+        shipService.getShips(filter, first);
+        shipService.getShips(filter, first);
+
+        assertTrue("Отклонённая предзагрузка не должна числиться загружающейся.", shipPagePrefetcher.getLoading() == 0);
+        assertTrue("Отклонённая предзагрузка не должна учитываться.",
+                (Long) shipPagePrefetcher.getStatistics().get("prefetched") == prefetched);
+        assertTrue("Следующая страница должна загружаться из базы.",
+                shipService.getShips(filter, first.next()).getNumberOfElements() > 0);
+    }
+
+    // the prefetch is registered before getShips returns
+    private void awaitPrefetched() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (shipPagePrefetcher.getLoading() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
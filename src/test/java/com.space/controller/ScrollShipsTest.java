@@ -0,0 +1,133 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class ScrollShipsTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void scrollAllShipsById() throws Exception {
+        List<ShipInfoTest> actual = scroll("", 7);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.ID, testsHelper.getAllShips());
+
+        assertTrue("Возвращается не правильный результат при прокрутке GET /rest/ships/scroll.", actual.equals(expected));
+    }
+
+    //test2
+    @Test
+    public void scrollAllShipsByRating() throws Exception {
+        List<ShipInfoTest> actual = scroll("order=RATING", 6);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.RATING, testsHelper.getAllShips());
+
+        assertTrue("Возвращается не правильный результат при прокрутке GET /rest/ships/scroll с параметром order.", actual.equals(expected));
+    }
+
+    //test3
+    @Test
+    public void scrollFilteredShipsBySpeed() throws Exception {
+        List<ShipInfoTest> actual = scroll("name=a&maxCrewSize=1500&order=SPEED", 4);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.SPEED,
+                testsHelper.getShipInfosByName("a",
+                        testsHelper.getShipInfosByMaxCrewSize(1500,
+                                testsHelper.getAllShips())));
+
+        assertTrue("Возвращается не правильный результат при прокрутке GET /rest/ships/scroll с фильтрами.", actual.equals(expected));
+    }
+
+    //test4
+    @Test
+    public void scrollWithInvalidCursor() throws Exception {
+        mockMvc.perform(get("/rest/ships/scroll?cursor=test")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test5
+    @Test
+    public void scrollWithCursorOfAnotherOrder() throws Exception {
+        JsonNode slice = mapper.readTree(mockMvc.perform(get("/rest/ships/scroll?limit=3")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        mockMvc.perform(get("/rest/ships/scroll?order=SPEED&cursor=" + slice.get("next").asText())
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test6
+    @Test
+    public void scrollWithInvalidLimit() throws Exception {
+        mockMvc.perform(get("/rest/ships/scroll?limit=0")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<ShipInfoTest> scroll(String query, int limit) throws Exception {
+        List<ShipInfoTest> ships = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            String url = "/rest/ships/scroll?limit=" + limit + (query.isEmpty() ? "" : "&" + query)
+                    + (cursor == null ? "" : "&cursor=" + cursor);
+            JsonNode slice = mapper.readTree(mockMvc.perform(get(url)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+
+            for (JsonNode ship : slice.get("ships")) {
+                ships.add(mapper.treeToValue(ship, ShipInfoTest.class));
+            }
+            assertTrue("Прокрутка вернула больше кораблей, чем запрошено.", slice.get("ships").size() <= limit);
+            cursor = slice.get("next").isNull() ? null : slice.get("next").asText();
+        } while (cursor != null);
+
+        return ships;
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
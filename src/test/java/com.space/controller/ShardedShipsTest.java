@@ -0,0 +1,253 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.ShardingConfig;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.Ship;
+import com.space.repository.ShardedShipRepository;
+import com.space.repository.ShipShard;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The API over three in-memory shards holding runs of eight ids each: ids 1-8 and 25-32 on shard 0,
+ * 9-16 and 33-40 on shard 1, 17-24 on shard 2.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, ShardingConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@ActiveProfiles(ShardingConfig.SHARDED)
+@TestPropertySource(properties = {"cosmoport.shards.count=3", "cosmoport.shards.range-size=8", "cosmoport.shards.rebalance=false"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class ShardedShipsTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShardedShipRepository shardedShipRepository;
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    // test.sql fills shard 0 only, the ships of the other shards are moved there afresh
+    @Before
+    public void setup() {
+        for (ShipShard shard : shardedShipRepository.getShards().subList(1, shardedShipRepository.getShards().size())) {
+            shard.inTransaction(() -> {
+                shard.getRepository().deleteAllInBatch();
+                return null;
+            });
+        }
+        shardedShipRepository.rebalance();
+        shardedShipRepository.getIds().discard();
+
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void shipsAreSpreadOverShardsByIdRange() {
+        int total = 0;
+        for (ShipShard shard : shardedShipRepository.getShards()) {
+            List<Ship> ships = shard.getRepository().findAll();
+            assertTrue("Шард " + shard + " пуст.", !ships.isEmpty());
+            for (Ship ship : ships) {
+                assertTrue("Корабль " + ship.getId() + " лежит не в своём шарде " + shard + ".",
+                        shardedShipRepository.shardOf(ship.getId()) == shard);
+            }
+            total += ships.size();
+        }
+
+        assertTrue("Корабли потерялись при распределении по шардам.", total == testsHelper.getAllShips().size());
+    }
+
+    //test2
+    @Test
+    public void getAllMergesOrderedPagesOfAllShards() throws Exception {
+        String content = mockMvc.perform(get("/rest/ships?order=SPEED&pageNumber=2&pageSize=5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<ShipInfoTest> actual = mapper.readValue(content, typeReference);
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(2, 5,
+                testsHelper.getShipInfosByOrder(ShipOrder.SPEED, testsHelper.getAllShips()));
+
+        assertTrue("Возвращается не правильный результат при запросе GET /rest/ships по шардам.", actual.equals(expected));
+    }
+
+    //test3
+    @Test
+    public void getCountSumsAllShards() throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/count?isUsed=false&minSpeed=0.3")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        int expected = testsHelper.getShipInfosByIsUsed(false,
+                testsHelper.getShipInfosByMinSpeed(0.3, testsHelper.getAllShips())).size();
+
+        assertTrue("Возвращается не правильный результат при запросе GET /rest/ships/count по шардам.", Integer.parseInt(content) == expected);
+    }
+
+    //test4
+    @Test
+    public void scrollMergesAllShards() throws Exception {
+        List<ShipInfoTest> actual = new ArrayList<>();
+        String cursor = null;
+        do {
+            JsonNode slice = mapper.readTree(mockMvc.perform(get("/rest/ships/scroll?order=RATING&limit=7"
+                    + (cursor == null ? "" : "&cursor=" + cursor))
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            for (JsonNode ship : slice.get("ships")) {
+                actual.add(mapper.treeToValue(ship, ShipInfoTest.class));
+            }
+            cursor = slice.get("next").isNull() ? null : slice.get("next").asText();
+        } while (cursor != null);
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.RATING, testsHelper.getAllShips());
+
+        assertTrue("Возвращается не правильный результат при прокрутке GET /rest/ships/scroll по шардам.", actual.equals(expected));
+    }
+
+    //test5
+    @Test
+    public void createdShipGetsFleetWideIdOnItsShard() throws Exception {
+        JsonNode created = mapper.readTree(mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        long id = created.get("id").asLong();
+
+        // the sequence of test.sql continues after the 40 ships, and id 41 falls into the run of shard 2
+        assertTrue("Новый корабль получил не следующий id последовательности.", id == 41);
+        assertTrue("Новый корабль записан не в свой шард.",
+                shardedShipRepository.getShards().get(2).getRepository().existsById(id));
+
+        mockMvc.perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/ships/" + id))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound());
+    }
+
+    //test6
+    @Test
+    public void updateGoesToTheShardOfTheShip() throws Exception {
+        mockMvc.perform(post("/rest/ships/12")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Hunter V\"}"))
+                .andExpect(status().isOk());
+
+        Ship updated = shardedShipRepository.getShards().get(1).getRepository().findById(12L).orElse(null);
+
+        assertTrue("Изменение не записано в шард корабля.", updated != null && "Hunter V".equals(updated.getName()));
+    }
+
+    //test7
+    @Test
+    public void queryByExampleMergesAllShards() {
+        Ship probe = new Ship();
+        probe.setUsed(false);
+        Example<Ship> example = Example.of(probe);
+        List<ShipInfoTest> unused = testsHelper.getShipInfosByIsUsed(false, testsHelper.getAllShips());
+
+        Page<Ship> page = shardedShipRepository.findAll(example, PageRequest.of(1, 4, ShipOrder.SPEED.getSort()));
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(1, 4, testsHelper.getShipInfosByOrder(ShipOrder.SPEED, unused));
+        List<Long> actualIds = new ArrayList<>();
+        List<Long> expectedIds = new ArrayList<>();
+        page.forEach(ship -> actualIds.add(ship.getId()));
+        expected.forEach(ship -> expectedIds.add(ship.id));
+
+        assertTrue("Поиск по образцу должен сливать упорядоченные страницы всех шардов.", actualIds.equals(expectedIds));
+        assertTrue("Поиск по образцу должен считать корабли всех шардов.",
+                page.getTotalElements() == unused.size() && shardedShipRepository.count(example) == unused.size());
+        assertTrue("Поиск по образцу без страницы должен возвращать корабли всех шардов.",
+                shardedShipRepository.findAll(example).size() == unused.size());
+
+        Ship named = new Ship();
+        named.setName(shardedShipRepository.findById(20L).get().getName());
+        named.setId(20L);
+        assertTrue("Поиск одного корабля по образцу должен находить его в любом шарде.",
+                shardedShipRepository.findOne(Example.of(named)).map(Ship::getId).orElse(0L) == 20L
+                        && shardedShipRepository.exists(Example.of(named)));
+    }
+
+    //test8
+    @Test
+    public void savingDeletedShipDoesNotRecreateIt() {
+        Ship loaded = shardedShipRepository.findById(12L).get();
+        shardedShipRepository.deleteShipById(12L);
+        loaded.setName("Hunter V");
+
+        try {
+            shardedShipRepository.saveAndFlush(loaded);
+            assertTrue("Сохранение удалённого корабля должно завершаться ошибкой.", false);
+        } catch (EmptyResultDataAccessException e) {
+            assertTrue("Удалённый корабль не должен сохраняться под новым id.",
+                    shardedShipRepository.count() == 39 && !shardedShipRepository.existsById(12L) && loaded.getId() == 12L);
+        }
+    }
+
+    //test9
+    @Test
+    public void createdShipIgnoresIdOfClient() throws Exception {
+        JsonNode created = mapper.readTree(mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(String.format(TestsHelper.NORMAL_JSON_WITH_ID, 12)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertTrue("Новый корабль должен получать свой id, а не присланный клиентом.", created.get("id").asLong() == 41);
+        assertTrue("Создание не должно менять корабль с присланным id.",
+                !"123456789".equals(shardedShipRepository.findById(12L).get().getName()));
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
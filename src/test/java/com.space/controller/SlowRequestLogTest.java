@@ -0,0 +1,116 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.QueryCapture;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.service.SlowRequest;
+import com.space.service.SlowRequestLog;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The slow request log with every request slow under the default capture, and the log alone with nothing sampled.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {"cosmoport.slow-requests.threshold=0", "cosmoport.slow-requests.capacity=2"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class SlowRequestLogTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private SlowRequestLog slowRequestLog;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        slowRequestLog.clear();
+    }
+
+    //test1
+    @Test
+    public void ringKeepsNewestRequestsTest() throws Exception {
+        for (String id : new String[]{"1", "2", "3"}) {
+            mockMvc.perform(get("/rest/ships/" + id)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk());
+        }
+
+        String content = mockMvc.perform(get("/rest/admin/slow-requests")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode slowRequests = mapper.readTree(content);
+
+        assertTrue("Журнал должен хранить не больше заданного числа запросов.", slowRequests.size() == 2);
+        assertTrue("Журнал должен начинаться с последнего запроса.",
+                slowRequests.get(0).get("uri").asText().equals("/rest/ships/3"));
+        assertTrue("Самый старый запрос должен вытесняться из журнала.",
+                slowRequests.get(1).get("uri").asText().equals("/rest/ships/2"));
+        for (JsonNode slowRequest : slowRequests) {
+            assertTrue("По умолчанию медленные запросы должны записываться со своим SQL.",
+                    slowRequest.get("captured").asBoolean() && slowRequest.get("statements").size() > 0);
+        }
+    }
+
+    //test2
+    @Test
+    public void clearEmptiesLogTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/1")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        assertTrue("Медленный запрос должен попадать в журнал.", !slowRequestLog.getSlowRequests().isEmpty());
+
+        mockMvc.perform(delete("/rest/admin/slow-requests"))
+                .andExpect(status().isOk());
+        assertTrue("Очистка должна удалять все записи журнала.", slowRequestLog.getSlowRequests().isEmpty());
+    }
+
+    //test3
+    @Test
+    public void unsampledRequestIsTimedOnlyTest() {
+        SlowRequestLog unsampled = new SlowRequestLog(true, 0, 0, 2, false);
+
+        QueryCapture capture = unsampled.begin();
+        assertTrue("Вне выборки запрос не должен перехватывать свои запросы к базе.",
+                capture == null && QueryCapture.current() == null);
+
+        unsampled.finish(capture, 1_000_000_000L, "GET", "/rest/ships", Collections.emptyMap(), "list", 200);
+        List<SlowRequest> slowRequests = unsampled.getSlowRequests();
+        assertTrue("Медленный запрос вне выборки должен записываться без SQL.", slowRequests.size() == 1
+                && !slowRequests.get(0).isCaptured() && slowRequests.get(0).getStatements().isEmpty());
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
@@ -0,0 +1,156 @@
+package com.space.controller;
+
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static com.space.controller.utils.StatementCounter.assertStatements;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statements per ShipController operation, with Hibernate statistics collected and exported, and the
+ * meters of the queries.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = "cosmoport.jpa.statistics=true")
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class StatementCountTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void countIsOneStatementTest() throws Exception {
+        assertStatements("Подсчёт кораблей должен выполняться одним запросом COUNT.", 1,
+                () -> mockMvc.perform(get("/rest/ships/count?planet=e")
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                        .andExpect(status().isOk()));
+    }
+
+    //test2
+    @Test
+    public void listIsPageAndCountTest() throws Exception {
+        assertStatements("Страница списка должна читаться запросом строк и запросом COUNT.", 2,
+                () -> mockMvc.perform(get("/rest/ships?pageSize=3")
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                        .andExpect(status().isOk()));
+    }
+
+    //test3
+    @Test
+    public void detailIsOneStatementTest() throws Exception {
+        assertStatements("Корабль по id должен читаться одним запросом.", 1,
+                () -> mockMvc.perform(get("/rest/ships/12")
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                        .andExpect(status().isOk()));
+    }
+
+    //test4
+    @Test
+    public void updateIsAtMostTwoStatementsTest() throws Exception {
+        assertStatements("Обновление корабля должно выполняться не более чем двумя запросами.", 1, 2,
+                () -> mockMvc.perform(post("/rest/ships/12")
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .accept(MediaType.APPLICATION_JSON_UTF8)
+                        .content(TestsHelper.NORMAL_JSON))
+                        .andExpect(status().isOk()));
+    }
+
+    //test5
+    @Test
+    public void deleteIsOneStatementTest() throws Exception {
+        assertStatements("Удаление корабля должно выполняться одним запросом DELETE без предварительного SELECT.", 1,
+                () -> mockMvc.perform(delete("/rest/ships/12")
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                        .andExpect(status().isOk()));
+        assertStatements("Удаление несуществующего корабля должно выполняться одним запросом.", 1,
+                () -> mockMvc.perform(delete("/rest/ships/12")
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                        .andExpect(status().isNotFound()));
+    }
+
+    //test6
+    @Test
+    public void hibernateStatisticsAreExportedTest() throws Exception {
+        FunctionCounter statements = meterRegistry.find("hibernate.statements").tag("status", "prepared").functionCounter();
+        assertTrue("При включённой статистике Hibernate должны публиковаться метрики hibernate.*.", statements != null);
+
+        double before = statements.count();
+        mockMvc.perform(get("/rest/ships/12")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        assertTrue("Метрики Hibernate должны учитывать выполненные запросы.", statements.count() > before);
+    }
+
+    //test7
+    @Test
+    public void queryTimerIsReusedTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/12")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        Timer lookup = meterRegistry.find("ship.query").tags("operation", "lookup", "outcome", "success").timer();
+        long before = lookup.count();
+
+        mockMvc.perform(get("/rest/ships/13")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        assertTrue("Повторный запрос должен учитываться тем же таймером.",
+                meterRegistry.find("ship.query").tags("operation", "lookup", "outcome", "success").timers().size() == 1
+                        && lookup.count() == before + 1);
+    }
+
+    //test8
+    @Test
+    public void requestTimerIsReusedTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/12")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        Timer request = meterRegistry.find("http.server.requests").tags("uri", "/rest/ships/{id}", "status", "200").timer();
+        long before = request.count();
+
+        mockMvc.perform(get("/rest/ships/13")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        assertTrue("Повторный запрос должен учитываться тем же таймером эндпоинта.",
+                meterRegistry.find("http.server.requests").tags("uri", "/rest/ships/{id}", "status", "200").timers().size() == 1
+                        && request.count() == before + 1);
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
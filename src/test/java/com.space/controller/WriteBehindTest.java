@@ -0,0 +1,248 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.service.ShipWriteBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Updates with write-behind enabled. The scheduled flush is pushed out of the way, so the tests decide
+ * when pending updates reach the database. At most two ships are held, and a failed flush on shutdown is
+ * retried every half second.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {"cosmoport.write-behind.enabled=true", "cosmoport.write-behind.flush-interval=3600000",
+        "cosmoport.write-behind.capacity=2", "cosmoport.write-behind.shutdown-retry-delay=500"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class WriteBehindTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShipWriteBuffer shipWriteBuffer;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    // nothing may be left over for the tables test.sql recreates before the next test
+    @After
+    public void flush() {
+        if (((ConfigurableApplicationContext) context).isActive()) {
+            shipWriteBuffer.flush();
+        }
+    }
+
+    //test1
+    @Test
+    public void updatesAreCoalescedAndReadBackBeforeFlushTest() throws Exception {
+        update(5, "{\"speed\": 0.9}");
+        update(5, "{\"crewSize\": 500}");
+
+        ShipInfoTest actual = mapper.readValue(mockMvc.perform(get("/rest/ships/5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), ShipInfoTest.class);
+
+        assertTrue("GET /rest/ships/{id} должен видеть ещё не записанные изменения.",
+                actual.speed == 0.9 && actual.crewSize == 500 && actual.rating == 8.0);
+        assertTrue("Изменения не должны попадать в базу до сброса буфера.", speedInDatabase(5) == 0.64);
+
+        long writes = ((Number) shipWriteBuffer.getStatistics().get("writes")).longValue();
+        Map<?, ?> statistics = mapper.readValue(mockMvc.perform(post("/rest/admin/write-behind/flush"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), Map.class);
+
+        assertTrue("После сброса буфера изменения должны быть в базе.", speedInDatabase(5) == 0.9);
+        assertTrue("Два изменения одного корабля должны записываться одной строкой.",
+                ((Number) statistics.get("writes")).longValue() == writes + 1 && ((Number) statistics.get("pending")).intValue() == 0);
+    }
+
+    //test2
+    @Test
+    public void deletedShipIsNotWrittenBackTest() throws Exception {
+        update(7, "{\"speed\": 0.5}");
+
+        mockMvc.perform(delete("/rest/ships/7"))
+                .andExpect(status().isOk());
+        shipWriteBuffer.flush();
+
+        mockMvc.perform(get("/rest/ships/7")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound());
+        assertTrue("Удалённый корабль не должен возвращаться в базу при сбросе буфера.",
+                new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM ship WHERE id = 7", Integer.class) == 0);
+    }
+
+    //test3
+    @Test
+    public void invalidUpdateIsNotBufferedTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\": 1.5}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/ships/410")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\": 0.5}"))
+                .andExpect(status().isNotFound());
+
+        assertTrue("Отклонённые изменения не должны попадать в буфер.", shipWriteBuffer.getPending() == 0);
+    }
+
+    //test4
+    @Test
+    @DirtiesContext
+    public void pendingUpdatesAreWrittenOnShutdownTest() throws Exception {
+        update(9, "{\"name\": \"Hunter V\"}");
+
+        ((ConfigurableApplicationContext) context).close();
+
+        String name = new JdbcTemplate(dataSource).queryForObject("SELECT name FROM ship WHERE id = 9", String.class);
+        assertTrue("При остановке приложения буфер должен сбрасываться в базу.", "Hunter V".equals(name));
+    }
+
+    //test5
+    @Test
+    public void fullBufferRejectsUpdatesWhileFlushFailsTest() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        update(1, "{\"name\": \"Rejected\"}");
+        update(2, "{\"name\": \"Rejected\"}");
+
+        jdbcTemplate.execute("ALTER TABLE ship ADD CONSTRAINT no_rejected CHECK (name <> 'Rejected')");
+        try {
+            for (int i = 0; i < 3; i++) {
+                mockMvc.perform(post("/rest/ships/3")
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content("{\"speed\": 0.1}"))
+                        .andExpect(status().isServiceUnavailable());
+            }
+            assertTrue("Пока сброс не удаётся, буфер не должен расти сверх ёмкости.", shipWriteBuffer.getPending() == 2);
+            update(1, "{\"name\": \"Accepted\"}");
+            update(2, "{\"name\": \"Accepted\"}");
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE ship DROP CONSTRAINT no_rejected");
+        }
+
+        update(3, "{\"speed\": 0.1}");
+        assertTrue("После успешного сброса буфер должен снова принимать изменения.",
+                "Accepted".equals(jdbcTemplate.queryForObject("SELECT name FROM ship WHERE id = 1", String.class))
+                        && shipWriteBuffer.getPending() == 1);
+    }
+
+    //test6
+    @Test
+    @DirtiesContext
+    public void pendingShipIsUpdatedThroughBufferWhileClosingTest() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        update(1, "{\"name\": \"Rejected\"}");
+
+        jdbcTemplate.execute("ALTER TABLE ship ADD CONSTRAINT no_rejected CHECK (name <> 'Rejected')");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            long failures = failures();
+            Future<?> closing = executor.submit(() -> {
+                shipWriteBuffer.destroy();
+                return null;
+            });
+            long deadline = System.currentTimeMillis() + 5000;
+            while (failures() == failures && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue("Последний сброс при остановке должен начаться.", failures() > failures);
+
+            update(1, "{\"name\": \"Accepted\", \"speed\": 0.1}");
+            update(2, "{\"speed\": 0.1}");
+            assertTrue("Корабль без ожидающих изменений должен при остановке записываться сразу.", speedInDatabase(2) == 0.1);
+
+            closing.get(5, TimeUnit.SECONDS);
+            assertTrue("Изменение ожидающего корабля при остановке не должно затираться старым состоянием.",
+                    "Accepted".equals(jdbcTemplate.queryForObject("SELECT name FROM ship WHERE id = 1", String.class))
+                            && speedInDatabase(1) == 0.1 && shipWriteBuffer.getPending() == 0);
+        } finally {
+            executor.shutdownNow();
+            jdbcTemplate.execute("ALTER TABLE ship DROP CONSTRAINT no_rejected");
+        }
+    }
+
+    //test7
+    @Test
+    @DirtiesContext
+    public void failedShutdownFlushIsRetriedTest() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        update(1, "{\"name\": \"Rejected\"}");
+
+        jdbcTemplate.execute("ALTER TABLE ship ADD CONSTRAINT no_rejected CHECK (name <> 'Rejected')");
+        try {
+            long failures = failures();
+            shipWriteBuffer.destroy();
+
+            assertTrue("Неудачный сброс при остановке должен повторяться заданное число раз.", failures() == failures + 4);
+            assertTrue("Не записанные при остановке изменения не должны молча отбрасываться.",
+                    shipWriteBuffer.getPending() == 1 && "Rejected".equals(shipWriteBuffer.get(1).getName()));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE ship DROP CONSTRAINT no_rejected");
+        }
+    }
+
+    private long failures() {
+        return ((Number) shipWriteBuffer.getStatistics().get("failures")).longValue();
+    }
+
+    private void update(long id, String json) throws Exception {
+        mockMvc.perform(post("/rest/ships/" + id)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(json))
+                .andExpect(status().isOk());
+    }
+
+    private double speedInDatabase(long id) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT speed FROM ship WHERE id = ?", Double.class, id);
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
@@ -0,0 +1,46 @@
+package com.space.controller.utils;
+
+import com.space.config.CapturedStatement;
+import com.space.config.QueryCapture;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+/**
+ * Pins the number of SQL round trips of an operation, so an extra query, such as a SELECT before a
+ * DELETE or a count that loads rows, fails the build. Counts what the calling thread executes through
+ * the {@link QueryCapture} of {@code CapturingDataSource}; a JDBC batch counts once.
+ */
+public class StatementCounter {
+
+    public interface Work {
+        void run() throws Exception;
+    }
+
+    public static QueryCapture capture(Work work) throws Exception {
+        QueryCapture capture = new QueryCapture();
+        QueryCapture.attach(capture);
+        try {
+            work.run();
+        } finally {
+            QueryCapture.detach();
+        }
+        return capture;
+    }
+
+    public static void assertStatements(String message, int expected, Work work) throws Exception {
+        assertStatements(message, expected, expected, work);
+    }
+
+    public static void assertStatements(String message, int min, int max, Work work) throws Exception {
+        List<String> statements = new ArrayList<>();
+        int count = 0;
+        for (CapturedStatement statement : capture(work).getStatements()) {
+            count += statement.getExecutions();
+            statements.add(statement.getSql());
+        }
+        assertTrue(message + " Выполнено запросов: " + count + " " + statements, count >= min && count <= max);
+    }
+}
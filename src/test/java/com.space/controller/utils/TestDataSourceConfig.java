@@ -1,8 +1,19 @@
 package com.space.controller.utils;
 
+import com.space.config.CapturingDataSource;
+import com.space.config.DataSourceConfig;
+import com.space.config.JdbcTuning;
+import com.space.config.JsonConfig;
+import com.space.config.MetricsConfig;
+import com.space.repository.ShipIdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.jdbc.datasource.DriverManagerDataSource;
@@ -21,12 +32,19 @@ import java.util.Properties;
 @EnableTransactionManagement
 @ComponentScan("com.space.service")
 @EnableJpaRepositories(basePackages = "com.space.repository")
+@Import({MetricsConfig.class, JsonConfig.class})
 public class TestDataSourceConfig {
 
+    // run the suite against a local MySQL with -Dspring.profiles.active=mysql
+    public static final String MYSQL = "mysql";
+
+    @Autowired
+    private Environment environment;
+
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
-        em.setDataSource(dataSource());
+        em.setDataSource(dataSource);
         em.setPackagesToScan("com.space.model");
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
@@ -37,13 +55,21 @@ public class TestDataSourceConfig {
     }
 
     @Bean
+    @Profile("!" + MYSQL)
+    public DataSource embeddedDataSource() {
+        return new CapturingDataSource(DataSourceConfig.embedded("test"));
+    }
+
+    @Bean
+    @Profile(MYSQL)
     public DataSource dataSource() {
         DriverManagerDataSource dataSource = new DriverManagerDataSource();
         dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
         dataSource.setUrl("jdbc:mysql://localhost:3306/test?serverTimezone=UTC");
         dataSource.setUsername("root");
         dataSource.setPassword("root");
-        return dataSource;
+        dataSource.setConnectionProperties(new JdbcTuning(environment).mysqlProperties());
+        return new CapturingDataSource(dataSource);
     }
 
 
@@ -63,7 +89,12 @@ public class TestDataSourceConfig {
     private Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.hbm2ddl.auto", "none");
-        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.dialect",
+                DataSourceConfig.dialect(!environment.acceptsProfiles(Profiles.of(MYSQL))));
+        // test.sql resets ship_sequence before every test, which an id block cached from an earlier test would miss
+        properties.setProperty(ShipIdGenerator.BLOCK_SIZE, environment.getProperty(ShipIdGenerator.BLOCK_SIZE, "1"));
+        properties.putAll(new JdbcTuning(environment).hibernateProperties());
+        properties.setProperty("hibernate.generate_statistics", environment.getProperty(MetricsConfig.HIBERNATE_STATISTICS, "false"));
 
         return properties;
     }